@@ -1,13 +1,38 @@
 import net.labymod.labygradle.common.extension.LabyModAnnotationProcessorExtension.ReferenceType
 
+plugins {
+    // JMH benchmarks for the hot paths live in src/jmh/java, run with ./gradlew :core:jmh
+    id("me.champeau.jmh") version "0.7.2"
+}
+
 dependencies {
     labyProcessor()
     api(project(":api"))
 
     // Gson for JSON parsing
     addonMavenDependency("com.google.code.gson:gson:2.10.1")
+
+    // Unit tests in src/test/java, run with ./gradlew :core:test
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 labyModAnnotationProcessor {
     referenceType = ReferenceType.DEFAULT
 }
+
+jmh {
+    jmhVersion.set("1.37")
+    // FakeCiderServer lives in the test source set
+    includeTests.set(true)
+    // Allocation rate per operation next to the timings
+    profilers.set(listOf("gc"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
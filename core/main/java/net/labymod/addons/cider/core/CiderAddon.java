@@ -2,16 +2,27 @@ package net.labymod.addons.cider.core;
 
 import net.labymod.addons.cider.core.api.CiderAPI;
 import net.labymod.addons.cider.core.api.CiderAPIFactory;
+import net.labymod.addons.cider.core.api.CiderHttpClient;
 import net.labymod.addons.cider.core.api.CiderListener;
 import net.labymod.addons.cider.core.api.CiderPlaybackController;
+import net.labymod.addons.cider.core.api.CiderRecorder;
 import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.ConnectionState;
+import net.labymod.addons.cider.core.api.PlaybackSource;
+import net.labymod.addons.cider.core.api.PlaybackSourceType;
+import net.labymod.addons.cider.core.api.QueuePrefetcher;
+import net.labymod.addons.cider.core.api.SwappablePlaybackSource;
 import net.labymod.addons.cider.core.events.*;
 import net.labymod.addons.cider.core.interaction.ShareTrackBulletPoint;
+import net.labymod.addons.cider.core.labymod.hudwidgets.CiderDiagnosticsHudWidget;
 import net.labymod.addons.cider.core.labymod.hudwidgets.CiderHudWidget;
 import net.labymod.addons.cider.core.labymod.hudwidgets.CiderTextHudWidget;
 import net.labymod.addons.cider.core.listener.ServerEventListener;
+import net.labymod.addons.cider.core.metrics.CiderMetrics;
 import net.labymod.addons.cider.core.networking.CiderNetworkHandler;
 import net.labymod.addons.cider.core.sharing.TrackSharingManager;
+import net.labymod.addons.cider.core.util.TrackUtil;
+import net.labymod.api.Constants;
 import net.labymod.api.Laby;
 import net.labymod.api.addon.LabyAddon;
 import net.labymod.api.client.gui.hud.HudWidgetRegistry;
@@ -19,7 +30,12 @@ import net.labymod.api.client.gui.icon.Icon;
 import net.labymod.api.client.resources.ResourceLocation;
 import net.labymod.api.models.addon.annotation.AddonMain;
 import net.labymod.api.revision.SimpleRevision;
+import net.labymod.api.util.ThreadSafe;
 import net.labymod.api.util.version.SemanticVersion;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main addon class for Cider integration
@@ -27,19 +43,27 @@ import net.labymod.api.util.version.SemanticVersion;
 @AddonMain
 public class CiderAddon extends LabyAddon<CiderConfiguration> {
 
+    // Rate of position events on the event bus, the poll interval the event used to be fired at
+    private static final long BUS_POSITION_INTERVAL_MS = 1000;
     private static CiderAddon instance;
-    private final CiderAPI ciderAPI;
+    private final CiderHttpClient httpClient;
+    private SwappablePlaybackSource ciderAPI;
     private final CiderPlaybackController playbackController;
     private final TrackSharingManager trackSharingManager;
     private final CiderNetworkHandler networkHandler;
+    private final PositionEventPublisher positionEvents;
     private final Icon hudIcon;
+    private CiderRecorder recorder;
+    private QueuePrefetcher queuePrefetcher;
+    private PositionEventPublisher.Subscription busPositionEvents;
 
     public CiderAddon() {
         instance = this;
-        this.ciderAPI = CiderAPIFactory.create();
-        this.playbackController = new CiderPlaybackController(null);
+        this.httpClient = new CiderHttpClient(null, null);
+        this.playbackController = new CiderPlaybackController(this.httpClient);
         this.trackSharingManager = new TrackSharingManager(this);
         this.networkHandler = new CiderNetworkHandler(this);
+        this.positionEvents = new PositionEventPublisher();
         this.hudIcon = Textures.HudWidget.CIDER_32;
     }
 
@@ -55,6 +79,15 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
     protected void enable() {
         this.registerSettingCategory();
 
+        // Downloaded covers survive restarts
+        TrackUtil.configureDiskCache(dataDirectory().resolve("artwork"), this.logger());
+
+        // Widgets keep this instance, the source behind it is rebuilt when the playback source settings change
+        this.ciderAPI = new SwappablePlaybackSource(createPlaybackSource());
+
+        // Existing @Subscribe handlers keep receiving position events, sampled instead of on every update
+        this.busPositionEvents = this.positionEvents.subscribe(BUS_POSITION_INTERVAL_MS, TimeUnit.MILLISECONDS, event -> labyAPI().eventBus().fire(event));
+
         // Register event listener
         this.ciderAPI.registerListener(new CiderListener() {
             @Override
@@ -69,15 +102,35 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
 
             @Override
             public void onPositionChanged(double currentTime, double duration) {
-                labyAPI().eventBus().fire(new CiderPositionChangedEvent(currentTime, duration));
+                positionEvents.publish(currentTime, duration);
             }
 
             @Override
             public void onDisconnect() {
                 labyAPI().eventBus().fire(new CiderDisconnectEvent());
             }
+
+            @Override
+            public void onConnectionStateChanged(ConnectionState previousState, ConnectionState state) {
+                labyAPI().eventBus().fire(new CiderConnectionStateChangedEvent(previousState, state));
+            }
         });
 
+        // Load the artwork of upcoming queue tracks before they play
+        this.queuePrefetcher = new QueuePrefetcher(this.httpClient,
+            track -> ThreadSafe.executeOnRenderThread(() -> TrackUtil.prefetchIcon(track)));
+
+        // Record raw responses for later replay when requested (-Dcider.record=<file>)
+        String recordPath = System.getProperty("cider.record");
+        if (recordPath != null && !recordPath.isEmpty()) {
+            try {
+                this.recorder = new CiderRecorder(Paths.get(recordPath));
+            } catch (IOException e) {
+                this.logger().error("Failed to start Cider recording", e);
+            }
+        }
+        attachLiveSource(this.ciderAPI.current());
+
         // Initialize Cider API
         initializeCider();
 
@@ -88,6 +141,7 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
         HudWidgetRegistry registry = this.labyAPI().hudWidgetRegistry();
         registry.register(new CiderHudWidget("cider", this.hudIcon, this, this.ciderAPI));
         registry.register(new CiderTextHudWidget("cider-text", this.hudIcon, this.ciderAPI));
+        registry.register(new CiderDiagnosticsHudWidget("cider-diagnostics", this.hudIcon, this.ciderAPI));
 
         // Register interaction menu bullet points
         this.labyAPI().interactionMenuRegistry().register(new ShareTrackBulletPoint(this));
@@ -98,16 +152,32 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
 
     @Override
     protected void disable() {
-        if (ciderAPI.isInitialized()) {
+        if (ciderAPI != null && ciderAPI.isInitialized()) {
             ciderAPI.stop();
         }
+        if (ciderAPI != null) {
+            detachLiveSource(ciderAPI.current());
+        }
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
+        if (busPositionEvents != null) {
+            busPositionEvents.unsubscribe();
+            busPositionEvents = null;
+        }
         networkHandler.shutdown();
+        TrackUtil.closeDiskCache();
     }
 
     /**
      * Initialize Cider API
      */
     public void initializeCider() {
+        if (ciderAPI == null) {
+            return;
+        }
+
         if (ciderAPI.isInitialized()) {
             ciderAPI.stop();
         }
@@ -121,17 +191,55 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
         boolean requireToken = configuration().requireApiToken().get();
         String token = requireToken ? configuration().appToken().get() : null;
 
-        ciderAPI.updateSettings(apiUrl, token, requireToken);
-        playbackController.updateSettings(apiUrl, token, requireToken);
+        // API and playback controller share one keep-alive transport
+        httpClient.updateSettings(apiUrl, token, requireToken);
         ciderAPI.initialize();
         labyAPI().eventBus().fire(new CiderConnectEvent());
     }
 
+    /**
+     * Replace the playback source after its settings changed, widgets and listeners stay attached
+     */
+    public void reloadPlaybackSource() {
+        if (ciderAPI == null) {
+            return;
+        }
+
+        PlaybackSource next = createPlaybackSource();
+        detachLiveSource(ciderAPI.swap(next));
+        attachLiveSource(next);
+        initializeCider();
+    }
+
+    /**
+     * Hook queue prefetching and recording up to a live Cider source, a replay has neither a queue nor anything to record
+     */
+    private void attachLiveSource(PlaybackSource source) {
+        if (!(source instanceof CiderAPI)) {
+            return;
+        }
+
+        CiderAPI api = (CiderAPI) source;
+        api.registerListener(queuePrefetcher);
+        if (recorder != null) {
+            api.setRecorder(recorder);
+        }
+    }
+
+    private void detachLiveSource(PlaybackSource source) {
+        queuePrefetcher.cancel();
+        if (source instanceof CiderAPI) {
+            CiderAPI api = (CiderAPI) source;
+            api.unregisterListener(queuePrefetcher);
+            api.setRecorder(null);
+        }
+    }
+
     /**
      * Disconnect from Cider
      */
     public void disconnect() {
-        if (ciderAPI.isInitialized()) {
+        if (ciderAPI != null && ciderAPI.isInitialized()) {
             ciderAPI.stop();
         }
     }
@@ -141,10 +249,40 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
         return CiderConfiguration.class;
     }
 
-    public CiderAPI getCiderAPI() {
+    private PlaybackSource createPlaybackSource() {
+        CiderConfiguration config = configuration();
+        PlaybackSourceType type = config.playbackSource().get();
+        String replayFile = config.replayFile().get();
+        if (type == PlaybackSourceType.REPLAY && (replayFile == null || replayFile.isEmpty())) {
+            this.logger().warn("No Cider replay file configured, falling back to streaming");
+            type = PlaybackSourceType.STREAMING;
+        }
+
+        return CiderAPIFactory.create(
+            type,
+            this.httpClient,
+            type == PlaybackSourceType.REPLAY ? Paths.get(replayFile) : null,
+            config.replaySpeed().get()
+        );
+    }
+
+    /**
+     * The addon's directory next to its settings in LabyMod's config directory, independent of the working directory
+     */
+    private static Path dataDirectory() {
+        return Laby.labyAPI().labyModLoader().getGameDirectory()
+            .resolve(Constants.Files.CONFIGS)
+            .resolve("cider");
+    }
+
+    public PlaybackSource getCiderAPI() {
         return ciderAPI;
     }
 
+    public CiderHttpClient getHttpClient() {
+        return httpClient;
+    }
+
     public CiderPlaybackController getPlaybackController() {
         return playbackController;
     }
@@ -157,6 +295,20 @@ public class CiderAddon extends LabyAddon<CiderConfiguration> {
         return networkHandler;
     }
 
+    /**
+     * Subscribe here to receive {@link CiderPositionChangedEvent}s at another rate than the event bus' once per second
+     */
+    public PositionEventPublisher positionEvents() {
+        return positionEvents;
+    }
+
+    /**
+     * Pipeline metrics (latency, errors, bytes read, parse, dispatch and texture load time)
+     */
+    public CiderMetrics getMetrics() {
+        return CiderMetrics.get();
+    }
+
     public static CiderAddon get() {
         return instance;
     }
@@ -1,11 +1,14 @@
 package net.labymod.addons.cider.core;
 
+import net.labymod.addons.cider.core.api.PlaybackSourceType;
 import net.labymod.addons.cider.core.ui.TrackHistoryActivity;
 import net.labymod.api.addon.AddonConfig;
 import net.labymod.api.client.gui.screen.activity.Activity;
 import net.labymod.api.client.gui.screen.widget.widgets.activity.settings.ActivitySetting;
+import net.labymod.api.client.gui.screen.widget.widgets.input.SliderWidget.SliderSetting;
 import net.labymod.api.client.gui.screen.widget.widgets.input.SwitchWidget.SwitchSetting;
 import net.labymod.api.client.gui.screen.widget.widgets.input.TextFieldWidget.TextFieldSetting;
+import net.labymod.api.client.gui.screen.widget.widgets.input.dropdown.DropdownWidget.DropdownSetting;
 import net.labymod.api.configuration.loader.annotation.ConfigName;
 import net.labymod.api.configuration.loader.annotation.ShowSettingIf;
 import net.labymod.api.configuration.loader.property.ConfigProperty;
@@ -89,6 +92,23 @@ public class CiderConfiguration extends AddonConfig {
     @ConfigName("optimizeRendering")
     private final ConfigProperty<Boolean> optimizeRendering = new ConfigProperty<>(true);
 
+    @DropdownSetting
+    @ConfigName("playbackSource")
+    private final ConfigProperty<PlaybackSourceType> playbackSource = new ConfigProperty<PlaybackSourceType>(PlaybackSourceType.STREAMING)
+        .addChangeListener((property, prevValue, newValue) -> reloadPlaybackSource());
+
+    @TextFieldSetting
+    @ConfigName("replayFile")
+    @ShowSettingIf(value = "playbackSource", equals = "REPLAY")
+    private final ConfigProperty<String> replayFile = new ConfigProperty<String>("")
+        .addChangeListener((property, prevValue, newValue) -> reloadReplay());
+
+    @SliderSetting(min = 0, max = 120)
+    @ConfigName("replaySpeed")
+    @ShowSettingIf(value = "playbackSource", equals = "REPLAY")
+    private final ConfigProperty<Integer> replaySpeed = new ConfigProperty<Integer>(1)
+        .addChangeListener((property, prevValue, newValue) -> reloadReplay());
+
     // Sharing Settings
     @SettingSection("sharing")
     @SwitchSetting
@@ -103,6 +123,19 @@ public class CiderConfiguration extends AddonConfig {
         return new TrackHistoryActivity(CiderAddon.get());
     }
 
+    private void reloadReplay() {
+        if (playbackSource.get() == PlaybackSourceType.REPLAY) {
+            reloadPlaybackSource();
+        }
+    }
+
+    private static void reloadPlaybackSource() {
+        CiderAddon addon = CiderAddon.get();
+        if (addon != null) {
+            addon.reloadPlaybackSource();
+        }
+    }
+
     public ConfigProperty<Boolean> enabled() {
         return enabled;
     }
@@ -159,6 +192,18 @@ public class CiderConfiguration extends AddonConfig {
         return optimizeRendering;
     }
 
+    public ConfigProperty<PlaybackSourceType> playbackSource() {
+        return playbackSource;
+    }
+
+    public ConfigProperty<String> replayFile() {
+        return replayFile;
+    }
+
+    public ConfigProperty<Integer> replaySpeed() {
+        return replaySpeed;
+    }
+
     @Override
     public int getConfigVersion() {
         return 2;
@@ -0,0 +1,126 @@
+package net.labymod.addons.cider.core.api;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Shared state publication and listener dispatch for {@link PlaybackSource}s
+ * Implementations only decide where tracks come from and call {@link #applyState} / {@link #publishDisconnect}
+ */
+public abstract class AbstractPlaybackSource implements PlaybackSource {
+
+    private final ListenerRegistry listeners = new ListenerRegistry();
+
+    private volatile PlaybackSnapshot snapshot = PlaybackSnapshot.EMPTY;
+    private volatile ConnectionState connectionState = ConnectionState.DISCONNECTED;
+
+    /**
+     * Apply a new track/playback state and notify listeners about what changed
+     */
+    protected synchronized void applyState(CiderTrack track, boolean playing) {
+        track = withPlaying(track, playing);
+
+        // Publish track and play state together in a single volatile write
+        PlaybackSnapshot previous = snapshot;
+        snapshot = previous.next(track, playing);
+
+        // Check for track change
+        CiderTrack oldTrack = previous.getTrack();
+        if (!track.isSameTrack(oldTrack)) {
+            notifyTrackChanged(oldTrack, track);
+        }
+
+        // Check for playback state change
+        if (previous.isPlaying() != playing) {
+            notifyPlaybackChanged(playing);
+        }
+
+        // Notify position update
+        notifyPositionChanged(track.getCurrentTime(), track.getDuration());
+    }
+
+    /**
+     * Clear the current track and notify listeners, if there was one
+     *
+     * @return whether a track was cleared
+     */
+    protected synchronized boolean publishDisconnect() {
+        PlaybackSnapshot previous = snapshot;
+        if (previous.getTrack() == null) {
+            return false;
+        }
+
+        snapshot = previous.next(null, false);
+        notifyDisconnect();
+        return true;
+    }
+
+    /**
+     * Move to a new connection state and notify listeners if it actually changed
+     */
+    protected void transition(ConnectionState state) {
+        ConnectionState previousState;
+        synchronized (this) {
+            previousState = connectionState;
+            if (previousState == state) {
+                return;
+            }
+            connectionState = state;
+        }
+
+        onTransition(previousState, state);
+        notifyConnectionStateChanged(previousState, state);
+    }
+
+    /**
+     * Called after the connection state changed, before listeners are notified
+     */
+    protected void onTransition(ConnectionState previousState, ConnectionState state) {
+    }
+
+    protected static CiderTrack withPlaying(CiderTrack track, boolean playing) {
+        return track.isPlaying() == playing
+            ? track
+            : track.withPosition(track.getCurrentTime(), playing, track.getAnchorNanos());
+    }
+
+    @Override
+    public void registerListener(CiderListener listener, Executor executor) {
+        listeners.register(listener, executor);
+    }
+
+    @Override
+    public void unregisterListener(CiderListener listener) {
+        listeners.unregister(listener);
+    }
+
+    // Notification methods
+    protected void notifyTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+        listeners.dispatch(listener -> listener.onTrackChanged(oldTrack, newTrack));
+    }
+
+    protected void notifyPlaybackChanged(boolean playing) {
+        listeners.dispatch(listener -> listener.onPlaybackChanged(playing));
+    }
+
+    protected void notifyPositionChanged(double currentTime, double duration) {
+        listeners.dispatch(listener -> listener.onPositionChanged(currentTime, duration));
+    }
+
+    protected void notifyDisconnect() {
+        listeners.dispatch(CiderListener::onDisconnect);
+    }
+
+    protected void notifyConnectionStateChanged(ConnectionState previousState, ConnectionState state) {
+        listeners.dispatch(listener -> listener.onConnectionStateChanged(previousState, state));
+    }
+
+    @Override
+    public PlaybackSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public ConnectionState getConnectionState() {
+        return connectionState;
+    }
+}
@@ -2,42 +2,88 @@ package net.labymod.addons.cider.core.api;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import net.labymod.api.Laby;
-import net.labymod.api.util.concurrent.task.Task;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import net.labymod.addons.cider.core.metrics.CiderMetrics;
+import net.labymod.addons.cider.core.metrics.CountingInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Main API class for interacting with Cider RPC
+ * Playback source backed by the Cider RPC server
+ * Polls adaptively over HTTP and, when streaming is enabled, switches to pushed Socket.IO events while they are available
  */
-public class CiderAPI {
+public class CiderAPI extends AbstractPlaybackSource {
+
+    private static final int STREAM_RETRY_MS = 30000;
+    private static final long POLL_DEADLINE_MS = 3000;
+    private static final long POLL_BUSY_RETRY_MS = 250;
+    private static final int PROBE_TIMEOUT_MS = 1000;
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 3;
+    private static final long CIRCUIT_COOLDOWN_MS = 15000;
+    static final String ACTIVE_PATH = "/api/v1/playback/active";
+    static final String NOW_PLAYING_PATH = "/api/v1/playback/now-playing";
+    static final String IS_PLAYING_PATH = "/api/v1/playback/is-playing";
+
+    private final CiderHttpClient http;
+    private final PlaybackPipeline pipeline;
+    private final StreamHandler streamHandler;
+    private final CiderEventStream eventStream;
+    private final PollScheduler pollScheduler;
+    private final AtomicBoolean pollInFlight;
+    private final boolean streaming;
+    private final CiderMetrics metrics;
+    private final TaskScheduler scheduler;
+    private TaskScheduler.Scheduled pollTask;
+    private boolean polling;
+    // Bumped whenever polling starts or stops, continuations of an older poll chain drop out instead of rescheduling
+    private long pollGeneration;
+    private TaskScheduler.Scheduled streamRetryTask;
+    private volatile CompletableFuture<?> inFlightRequest;
+    private volatile InputStream inFlightBody;
+
+    private int consecutiveFailures;
+
+    private volatile boolean isInitialized;
+
+    private volatile CiderRecorder recorder;
 
-    private static final String DEFAULT_API_URL = "http://localhost:10767";
-    private static final int POLL_INTERVAL_MS = 1000;
+    public CiderAPI(String apiUrl, String appToken) {
+        this(new CiderHttpClient(apiUrl, appToken));
+    }
 
-    private String apiUrl;
-    private String appToken;
-    private boolean requireToken;
-    private final Gson gson;
-    private final List<CiderListener> listeners;
-    private Task pollTask;
+    public CiderAPI(CiderHttpClient http) {
+        this(http, true);
+    }
 
-    private CiderTrack currentTrack;
-    private boolean isPlaying;
-    private boolean isInitialized;
-    private String lastTrackId;
+    /**
+     * @param streaming whether to subscribe to pushed events once connected, polling only otherwise
+     */
+    public CiderAPI(CiderHttpClient http, boolean streaming) {
+        this(http, streaming, TaskScheduler.LABYMOD);
+    }
 
-    public CiderAPI(String apiUrl, String appToken) {
-        this.apiUrl = apiUrl != null ? apiUrl : DEFAULT_API_URL;
-        this.appToken = appToken;
-        this.requireToken = false;
-        this.gson = new Gson();
-        this.listeners = new ArrayList<>();
+    /**
+     * @param scheduler runs the poll and stream retry tasks and the stream's ping watchdog
+     */
+    public CiderAPI(CiderHttpClient http, boolean streaming, TaskScheduler scheduler) {
+        this.http = http;
+        this.streaming = streaming;
+        this.scheduler = scheduler;
+        this.pipeline = new PlaybackPipeline();
+        this.streamHandler = new StreamHandler();
+        this.eventStream = new CiderEventStream(http, new Gson(), streamHandler, scheduler);
+        this.pollScheduler = new PollScheduler();
+        this.pollInFlight = new AtomicBoolean(false);
+        this.metrics = CiderMetrics.get();
         this.isInitialized = false;
     }
 
@@ -45,263 +91,433 @@ public class CiderAPI {
      * Update API settings (URL, token, and whether token is required)
      */
     public void updateSettings(String apiUrl, String appToken, boolean requireToken) {
-        this.apiUrl = apiUrl != null ? apiUrl : DEFAULT_API_URL;
-        this.appToken = appToken;
-        this.requireToken = requireToken;
+        http.updateSettings(apiUrl, appToken, requireToken);
     }
 
     /**
-     * Initialize the API and start polling
+     * Initialize the API and start adaptive polling
+     * With streaming enabled, the push event stream is subscribed once Cider is connected; polling is suspended while it is open
      */
+    @Override
     public void initialize() {
         if (isInitialized) {
             return;
         }
 
         isInitialized = true;
-
-        // Start polling for track changes using Task pattern
-        this.pollTask = Task.builder(this::poll)
-            .repeat(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)
-            .build();
-        this.pollTask.execute();
+        consecutiveFailures = 0;
+        transition(ConnectionState.PROBING);
+        startPolling();
     }
 
     /**
      * Stop the API and cleanup resources
      */
+    @Override
     public void stop() {
+        shutdown();
+    }
+
+    private void shutdown() {
         if (!isInitialized) {
             return;
         }
 
         isInitialized = false;
+        stopPolling();
+        cancelInFlight();
+        if (this.streamRetryTask != null) {
+            this.streamRetryTask.cancel();
+            this.streamRetryTask = null;
+        }
+        eventStream.close();
+        transition(ConnectionState.DISCONNECTED);
+
+        notifyDisconnect();
+    }
+
+    /**
+     * @return the generation of the running poll chain
+     */
+    private synchronized long startPolling() {
+        if (this.polling) {
+            return this.pollGeneration;
+        }
+
+        this.polling = true;
+        this.pollGeneration++;
+        this.pollScheduler.reset();
+        schedulePoll(this.pollGeneration, 0);
+        return this.pollGeneration;
+    }
+
+    private synchronized void stopPolling() {
+        this.polling = false;
+        this.pollGeneration++;
         if (this.pollTask != null) {
             this.pollTask.cancel();
             this.pollTask = null;
         }
+    }
 
-        notifyDisconnect();
+    /**
+     * Schedule the next poll as a one-shot task so each delay can adapt to the last result
+     */
+    private synchronized void schedulePoll(long generation, long delayMs) {
+        if (!this.polling || generation != this.pollGeneration) {
+            return;
+        }
+
+        this.pollTask = scheduler.schedule(
+            () -> poll(generation).thenAccept(delay -> schedulePoll(generation, delay)),
+            delayMs
+        );
     }
 
     /**
-     * Poll for current track information
+     * Start one asynchronous poll for current track information
+     * A single now-playing request answers active state, track and (usually) play state.
+     * At most one poll is outstanding at a time and each poll is bounded by {@link #POLL_DEADLINE_MS}.
+     * While probing or with an open circuit, an asynchronous HEAD probe gates the HTTP request.
+     * Results of a poll whose generation is no longer current (polling stopped or restarted meanwhile) are dropped
+     *
+     * @param generation poll chain this poll belongs to
+     * @return future completing with the delay in milliseconds until the next poll
      */
-    private void poll() {
-        try {
-            // Check if Cider is active
-            if (!isActive()) {
-                handleDisconnect();
-                return;
-            }
+    private CompletableFuture<Long> poll(long generation) {
+        if (!isCurrent(generation)) {
+            return CompletableFuture.completedFuture(0L);
+        }
 
-            // Get current playing state
-            boolean wasPlaying = isPlaying;
-            isPlaying = getIsPlaying();
+        if (!pollInFlight.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(POLL_BUSY_RETRY_MS);
+        }
 
-            // Get current track
-            CiderTrack track = getNowPlaying();
+        ConnectionState state = getConnectionState();
+        if (state != ConnectionState.PROBING && state != ConnectionState.OPEN_CIRCUIT) {
+            return request(generation);
+        }
 
-            if (track == null) {
-                handleDisconnect();
-                return;
-            }
+        return probe().thenCompose(reachable -> {
+            synchronized (this) {
+                if (!isInitialized || generation != pollGeneration) {
+                    pollInFlight.set(false);
+                    return CompletableFuture.completedFuture(0L);
+                }
 
-            // Check for track change
-            String trackId = track.getId();
-            if (!trackId.equals(lastTrackId)) {
-                CiderTrack oldTrack = currentTrack;
-                currentTrack = track;
-                lastTrackId = trackId;
-                notifyTrackChanged(oldTrack, currentTrack);
-            } else {
-                currentTrack = track;
-            }
+                if (!reachable) {
+                    pollInFlight.set(false);
+                    return CompletableFuture.completedFuture(onProbeFailed());
+                }
 
-            // Check for playback state change
-            if (wasPlaying != isPlaying) {
-                notifyPlaybackChanged(isPlaying);
+                // Half-open: let one request through
+                transition(ConnectionState.PROBING);
             }
+            return request(generation);
+        });
+    }
 
-            // Notify position update
-            notifyPositionChanged(track.getCurrentTime(), track.getDuration());
-
-        } catch (Exception e) {
-            // Silently handle polling errors
-        }
+    /**
+     * Whether Cider answers a HEAD request within {@link #PROBE_TIMEOUT_MS}, never completes exceptionally
+     */
+    private CompletableFuture<Boolean> probe() {
+        return http.headAsync(ACTIVE_PATH, Duration.ofMillis(PROBE_TIMEOUT_MS))
+            .orTimeout(PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .handle((response, error) -> error == null);
     }
 
     /**
-     * Check if Cider RPC is active
+     * Now-playing request of one poll, plus is-playing when the play state cannot be inferred
      */
-    private boolean isActive() {
-        try {
-            URL url = new URL(apiUrl + "/api/v1/playback/active");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
+    private CompletableFuture<Long> request(long generation) {
+        // A successful now-playing response implies Cider is active
+        return fetchNowPlaying()
+            .thenCompose(track -> {
+                if (track == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
 
-            // Only send token if required and available
-            if (requireToken && appToken != null && !appToken.isEmpty()) {
-                conn.setRequestProperty("apptoken", appToken);
-            }
+                // Get current playing state, falling back to is-playing when the position is inconclusive
+                Boolean inferredPlaying = pipeline.inferPlaying(track, getSnapshot().getTrack(), System.nanoTime());
+                if (inferredPlaying != null) {
+                    return CompletableFuture.completedFuture(withPlaying(track, inferredPlaying));
+                }
+                return fetchIsPlaying().thenApply(playing -> withPlaying(track, playing));
+            })
+            .orTimeout(POLL_DEADLINE_MS, TimeUnit.MILLISECONDS)
+            .handle((track, error) -> {
+                if (error != null) {
+                    // Deadline hit or cancelled, make sure nothing keeps reading from the socket
+                    cancelInFlight();
+                }
+                pollInFlight.set(false);
+
+                // Checked and applied under the lock, so a concurrent stop or restart cannot interleave
+                synchronized (this) {
+                    if (!isInitialized || generation != pollGeneration) {
+                        return 0L;
+                    }
+
+                    if (error != null) {
+                        metrics.recordError(error);
+                        return onRequestFailed(error);
+                    }
+
+                    consecutiveFailures = 0;
+                    transition(ConnectionState.CONNECTED);
+
+                    if (track == null) {
+                        // Cider is running but nothing is loaded
+                        handleDisconnect();
+                        return pollScheduler.onIdle();
+                    }
+
+                    applyState(track, track.isPlaying());
+                    return pollScheduler.onSuccess(track, track.isPlaying());
+                }
+            });
+    }
+
+    private synchronized boolean isCurrent(long generation) {
+        return generation == this.pollGeneration;
+    }
 
-            conn.setConnectTimeout(2000);
-            conn.setReadTimeout(2000);
+    private synchronized long currentGeneration() {
+        return this.pollGeneration;
+    }
 
-            int responseCode = conn.getResponseCode();
-            conn.disconnect();
+    /**
+     * TCP probe failed: open the circuit after repeated failures
+     *
+     * @return delay in milliseconds until the next poll
+     */
+    private long onProbeFailed() {
+        metrics.recordError("ProbeFailed");
+        if (getConnectionState() == ConnectionState.OPEN_CIRCUIT) {
+            return CIRCUIT_COOLDOWN_MS;
+        }
 
-            return responseCode == 204 || responseCode == 200;
-        } catch (Exception e) {
-            return false;
+        if (++consecutiveFailures >= CIRCUIT_FAILURE_THRESHOLD) {
+            transition(ConnectionState.OPEN_CIRCUIT);
+            return CIRCUIT_COOLDOWN_MS;
         }
+        return pollScheduler.onFailure();
     }
 
     /**
-     * Get current playing state
+     * HTTP request failed: degrade, or open the circuit if Cider refused the connection or kept failing
+     *
+     * @return delay in milliseconds until the next poll
      */
-    private boolean getIsPlaying() {
-        try {
-            URL url = new URL(apiUrl + "/api/v1/playback/is-playing");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
+    private long onRequestFailed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        if (cause instanceof ConnectException || ++consecutiveFailures >= CIRCUIT_FAILURE_THRESHOLD) {
+            // Clear the track first, an open circuit never shows a stale one
+            handleDisconnect();
+            transition(ConnectionState.OPEN_CIRCUIT);
+            return CIRCUIT_COOLDOWN_MS;
+        }
 
-            // Only send token if required and available
-            if (requireToken && appToken != null && !appToken.isEmpty()) {
-                conn.setRequestProperty("apptoken", appToken);
-            }
+        if (getConnectionState() == ConnectionState.CONNECTED) {
+            transition(ConnectionState.DEGRADED);
+        }
+        return pollScheduler.onFailure();
+    }
+
+    /**
+     * Subscribe to pushed events as soon as Cider is reachable
+     */
+    @Override
+    protected void onTransition(ConnectionState previousState, ConnectionState state) {
+        if (state == ConnectionState.CONNECTED && streaming && isInitialized) {
+            eventStream.connect();
+        }
+    }
 
-            conn.setConnectTimeout(2000);
-            conn.setReadTimeout(2000);
+    /**
+     * Abort the request (and body read) of the poll that is currently in flight
+     */
+    private void cancelInFlight() {
+        CompletableFuture<?> request = this.inFlightRequest;
+        if (request != null) {
+            request.cancel(true);
+        }
 
-            if (conn.getResponseCode() == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                String response = reader.readLine();
-                reader.close();
-                conn.disconnect();
+        InputStream body = this.inFlightBody;
+        if (body != null) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
 
-                return Boolean.parseBoolean(response);
+    /**
+     * Get current playing state
+     */
+    private CompletableFuture<Boolean> fetchIsPlaying() {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> request = http.getAsync(
+            IS_PLAYING_PATH,
+            CiderHttpClient.DEFAULT_TIMEOUT,
+            HttpResponse.BodyHandlers.ofString()
+        );
+        this.inFlightRequest = request;
+
+        return request.thenApply(response -> {
+            metrics.recordRequest(IS_PLAYING_PATH, System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                metrics.recordError("HTTP " + response.statusCode());
+                record(IS_PLAYING_PATH, new byte[0]);
+                return false;
             }
 
-            conn.disconnect();
-            return false;
-        } catch (Exception e) {
+            byte[] raw = response.body().getBytes(StandardCharsets.UTF_8);
+            metrics.recordBytesRead(raw.length);
+            record(IS_PLAYING_PATH, raw);
+
+            long parseStart = System.nanoTime();
+            boolean playing = PlaybackPipeline.parseIsPlaying(response.body());
+            metrics.recordParse(System.nanoTime() - parseStart);
+            return playing;
+        }).exceptionally(error -> {
+            metrics.recordError(error);
             return false;
-        }
+        });
     }
 
     /**
      * Get currently playing track information
+     * The body is decoded straight from the socket's input stream; an unchanged track is reused with a new position
      */
-    private CiderTrack getNowPlaying() {
-        try {
-            URL url = new URL(apiUrl + "/api/v1/playback/now-playing");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-
-            // Only send token if required and available
-            if (requireToken && appToken != null && !appToken.isEmpty()) {
-                conn.setRequestProperty("apptoken", appToken);
+    private CompletableFuture<CiderTrack> fetchNowPlaying() {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> request = http.getAsync(
+            NOW_PLAYING_PATH,
+            CiderHttpClient.DEFAULT_TIMEOUT,
+            HttpResponse.BodyHandlers.ofInputStream()
+        );
+        this.inFlightRequest = request;
+
+        return request.thenApply(response -> {
+            if (response.statusCode() != 200) {
+                metrics.recordError("HTTP " + response.statusCode());
             }
 
-            conn.setConnectTimeout(2000);
-            conn.setReadTimeout(2000);
-
-            if (conn.getResponseCode() == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
+            try (CountingInputStream body = new CountingInputStream(response.body())) {
+                this.inFlightBody = body;
+                CiderTrack track;
+
+                if (recorder != null) {
+                    // Recording needs the raw bytes, so buffer the body instead of decoding from the socket
+                    byte[] raw = response.statusCode() == 200 ? body.readAllBytes() : new byte[0];
+                    record(NOW_PLAYING_PATH, raw);
+                    track = raw.length > 0 ? decode(new ByteArrayInputStream(raw)) : null;
+                } else {
+                    track = response.statusCode() == 200 ? decode(body) : null;
                 }
-                reader.close();
-                conn.disconnect();
-
-                JsonObject json = gson.fromJson(response.toString(), JsonObject.class);
-                JsonObject info = json.getAsJsonObject("info");
-                JsonObject artwork = info.has("artwork") ? info.getAsJsonObject("artwork") : null;
-
-                return new CiderTrack(
-                    info.get("name").getAsString(),
-                    info.get("artistName").getAsString(),
-                    info.get("albumName").getAsString(),
-                    artwork != null ? artwork.get("url").getAsString() : null,
-                    info.get("durationInMillis").getAsLong() / 1000.0,
-                    info.has("currentPlaybackTime") ? info.get("currentPlaybackTime").getAsDouble() : 0.0,
-                    info.has("genreNames") && info.getAsJsonArray("genreNames").size() > 0
-                        ? info.getAsJsonArray("genreNames").get(0).getAsString()
-                        : "Unknown"
-                );
+
+                // Drain the rest so the keep-alive connection can be reused
+                body.transferTo(OutputStream.nullOutputStream());
+                metrics.recordBytesRead(body.getCount());
+                metrics.recordRequest(NOW_PLAYING_PATH, System.nanoTime() - start);
+                return track;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                this.inFlightBody = null;
             }
+        });
+    }
 
-            conn.disconnect();
-            return null;
-        } catch (Exception e) {
-            return null;
+    private CiderTrack decode(InputStream body) throws IOException {
+        long parseStart = System.nanoTime();
+        try {
+            return pipeline.decodeNowPlaying(body, getSnapshot().getTrack());
+        } finally {
+            metrics.recordParse(System.nanoTime() - parseStart);
         }
     }
 
     /**
      * Handle disconnect event
      */
-    private void handleDisconnect() {
-        if (currentTrack != null) {
-            currentTrack = null;
-            lastTrackId = null;
-            isPlaying = false;
-            notifyDisconnect();
+    private synchronized void handleDisconnect() {
+        if (publishDisconnect()) {
+            pipeline.resetInference();
         }
     }
 
     /**
-     * Register a listener for Cider events
+     * Turns pushed Socket.IO playback events into listener callbacks
      */
-    public void registerListener(CiderListener listener) {
-        listeners.add(listener);
-    }
+    private class StreamHandler implements CiderEventStream.Handler {
 
-    /**
-     * Unregister a listener
-     */
-    public void unregisterListener(CiderListener listener) {
-        listeners.remove(listener);
-    }
+        @Override
+        public void onOpen() {
+            stopPolling();
 
-    // Notification methods
-    private void notifyTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
-        for (CiderListener listener : listeners) {
-            listener.onTrackChanged(oldTrack, newTrack);
+            // Events only arrive on change, so seed the current state once
+            poll(currentGeneration());
         }
-    }
 
-    private void notifyPlaybackChanged(boolean playing) {
-        for (CiderListener listener : listeners) {
-            listener.onPlaybackChanged(playing);
-        }
-    }
+        @Override
+        public void onPlaybackEvent(String type, JsonObject data) {
+            record(CiderRecorder.STREAM_SOURCE_PREFIX + type, data.toString().getBytes(StandardCharsets.UTF_8));
 
-    private void notifyPositionChanged(double currentTime, double duration) {
-        for (CiderListener listener : listeners) {
-            listener.onPositionChanged(currentTime, duration);
+            try {
+                pipeline.applyEvent(CiderAPI.this, type, data);
+            } catch (Exception e) {
+                // Ignore events we cannot decode
+            }
         }
-    }
 
-    private void notifyDisconnect() {
-        for (CiderListener listener : listeners) {
-            listener.onDisconnect();
+        @Override
+        public void onClose() {
+            if (!isInitialized) {
+                return;
+            }
+
+            // Fall back to polling and try to subscribe again later, unless the session restarted meanwhile
+            long generation = startPolling();
+            if (streamRetryTask != null) {
+                streamRetryTask.cancel();
+            }
+            streamRetryTask = scheduler.schedule(() -> {
+                if (isCurrent(generation) && isInitialized && getConnectionState() == ConnectionState.CONNECTED) {
+                    eventStream.connect();
+                }
+            }, STREAM_RETRY_MS);
         }
     }
 
-    // Getters
-    public CiderTrack getCurrentTrack() {
-        return currentTrack;
+    /**
+     * Record every raw playback response and pushed event, null stops recording
+     * The previous recorder is not closed
+     */
+    public void setRecorder(CiderRecorder recorder) {
+        this.recorder = recorder;
     }
 
-    public boolean isPlaying() {
-        return isPlaying;
+    private void record(String source, byte[] body) {
+        CiderRecorder recorder = this.recorder;
+        if (recorder != null) {
+            recorder.record(source, body);
+        }
     }
 
+    @Override
     public boolean isInitialized() {
         return isInitialized;
     }
+
+    public boolean isStreaming() {
+        return eventStream.isConnected();
+    }
+
+    public CiderHttpClient getHttpClient() {
+        return http;
+    }
 }
@@ -1,7 +1,9 @@
 package net.labymod.addons.cider.core.api;
 
+import java.nio.file.Path;
+
 /**
- * Factory for creating CiderAPI instances
+ * Factory for creating playback sources
  */
 public class CiderAPIFactory {
 
@@ -16,6 +18,32 @@ public class CiderAPIFactory {
      * Create a new CiderAPI instance with custom URL and token
      */
     public static CiderAPI create(String apiUrl, String appToken) {
-        return new CiderAPI(apiUrl, appToken);
+        return create(new CiderHttpClient(apiUrl, appToken));
+    }
+
+    /**
+     * Create a new CiderAPI instance on top of a shared transport
+     */
+    public static CiderAPI create(CiderHttpClient http) {
+        return new CiderAPI(http);
+    }
+
+    /**
+     * Create the playback source selected in the configuration
+     *
+     * @param http transport of the live sources, unused by {@link PlaybackSourceType#REPLAY}
+     * @param replayFile recording to play back, only used by {@link PlaybackSourceType#REPLAY}
+     * @param replaySpeed playback speed, only used by {@link PlaybackSourceType#REPLAY}
+     */
+    public static PlaybackSource create(PlaybackSourceType type, CiderHttpClient http, Path replayFile, double replaySpeed) {
+        switch (type) {
+            case POLLING:
+                return new CiderAPI(http, false);
+            case REPLAY:
+                return new ReplayPlaybackSource(replayFile, replaySpeed);
+            case STREAMING:
+            default:
+                return new CiderAPI(http, true);
+        }
     }
 }
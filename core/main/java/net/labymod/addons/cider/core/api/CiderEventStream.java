@@ -0,0 +1,268 @@
+package net.labymod.addons.cider.core.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Push-based event stream for the Cider RPC server
+ * Speaks the minimal subset of Socket.IO (Engine.IO v4 over a WebSocket) needed to receive playback events
+ * A connection that stops pinging is treated as closed, a dropped socket is not always reported by the WebSocket client
+ */
+public class CiderEventStream implements WebSocket.Listener {
+
+    private static final String SOCKET_PATH = "/socket.io/?EIO=4&transport=websocket";
+    private static final String PLAYBACK_EVENT = "API:Playback";
+    private static final long DEFAULT_PING_DEADLINE_MS = 45000;
+
+    private final CiderHttpClient http;
+    private final Gson gson;
+    private final Handler handler;
+    private final TaskScheduler scheduler;
+    private final StringBuilder messageBuffer;
+
+    private volatile WebSocket webSocket;
+    private volatile boolean active;
+    private volatile boolean connected;
+    private long pingDeadlineMs = DEFAULT_PING_DEADLINE_MS;
+    private TaskScheduler.Scheduled pingWatchdog;
+
+    public CiderEventStream(CiderHttpClient http, Gson gson, Handler handler) {
+        this(http, gson, handler, TaskScheduler.LABYMOD);
+    }
+
+    /**
+     * @param scheduler runs the ping watchdog
+     */
+    public CiderEventStream(CiderHttpClient http, Gson gson, Handler handler, TaskScheduler scheduler) {
+        this.http = http;
+        this.gson = gson;
+        this.handler = handler;
+        this.scheduler = scheduler;
+        this.messageBuffer = new StringBuilder();
+    }
+
+    /**
+     * Open the WebSocket and subscribe to playback events
+     * Failures are reported through {@link Handler#onClose()}
+     */
+    public synchronized void connect() {
+        if (active) {
+            return;
+        }
+
+        active = true;
+        try {
+            http.newWebSocket(SOCKET_PATH, this).whenComplete((socket, throwable) -> {
+                if (throwable != null) {
+                    handleClose();
+                }
+            });
+        } catch (Exception e) {
+            handleClose();
+        }
+    }
+
+    /**
+     * Close the stream without notifying the handler
+     */
+    public synchronized void close() {
+        active = false;
+        connected = false;
+        cancelPingWatchdog();
+        WebSocket socket = webSocket;
+        webSocket = null;
+        if (socket != null) {
+            socket.abort();
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        synchronized (this) {
+            if (!active) {
+                webSocket.abort();
+                return;
+            }
+            this.webSocket = webSocket;
+        }
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        messageBuffer.append(data);
+        if (last) {
+            String message = messageBuffer.toString();
+            messageBuffer.setLength(0);
+            try {
+                handleMessage(webSocket, message);
+            } catch (Exception e) {
+                // Ignore malformed frames, the stream stays usable
+            }
+        }
+
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        handleClose();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        handleClose();
+    }
+
+    /**
+     * Handle a single Engine.IO packet
+     */
+    private void handleMessage(WebSocket webSocket, String message) {
+        if (message.isEmpty()) {
+            return;
+        }
+
+        switch (message.charAt(0)) {
+            case '0':
+                // Engine.IO open, join the default Socket.IO namespace
+                readPingDeadline(message.substring(1));
+                armPingWatchdog(webSocket);
+                webSocket.sendText("40", true);
+                break;
+            case '2':
+                // Engine.IO ping
+                armPingWatchdog(webSocket);
+                webSocket.sendText("3", true);
+                break;
+            case '1':
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+                handleClose();
+                break;
+            case '4':
+                handleSocketPacket(message.substring(1));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Handle a Socket.IO packet (connect, disconnect or event)
+     */
+    private void handleSocketPacket(String packet) {
+        if (packet.isEmpty()) {
+            return;
+        }
+
+        switch (packet.charAt(0)) {
+            case '0':
+                connected = true;
+                handler.onOpen();
+                break;
+            case '1':
+            case '4':
+                handleClose();
+                break;
+            case '2':
+                handleEvent(packet.substring(1));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void handleEvent(String payload) {
+        JsonArray event = gson.fromJson(payload, JsonArray.class);
+        if (event == null || event.size() < 2 || !PLAYBACK_EVENT.equals(event.get(0).getAsString())) {
+            return;
+        }
+
+        JsonObject body = event.get(1).getAsJsonObject();
+        if (!body.has("type")) {
+            return;
+        }
+
+        JsonElement data = body.get("data");
+        handler.onPlaybackEvent(
+            body.get("type").getAsString(),
+            data != null && data.isJsonObject() ? data.getAsJsonObject() : new JsonObject()
+        );
+    }
+
+    /**
+     * The server pings every pingInterval and gives up after pingTimeout, so that is how long we wait as well
+     */
+    private void readPingDeadline(String handshake) {
+        try {
+            JsonObject open = gson.fromJson(handshake, JsonObject.class);
+            if (open != null && open.has("pingInterval") && open.has("pingTimeout")) {
+                pingDeadlineMs = open.get("pingInterval").getAsLong() + open.get("pingTimeout").getAsLong();
+            }
+        } catch (RuntimeException e) {
+            // Keep the default deadline
+        }
+    }
+
+    private synchronized void armPingWatchdog(WebSocket socket) {
+        if (!active) {
+            return;
+        }
+
+        cancelPingWatchdog();
+        pingWatchdog = scheduler.schedule(() -> {
+            if (this.webSocket == socket) {
+                handleClose();
+            }
+        }, pingDeadlineMs);
+    }
+
+    private synchronized void cancelPingWatchdog() {
+        if (pingWatchdog != null) {
+            pingWatchdog.cancel();
+            pingWatchdog = null;
+        }
+    }
+
+    private void handleClose() {
+        synchronized (this) {
+            if (!active) {
+                return;
+            }
+            close();
+        }
+
+        messageBuffer.setLength(0);
+        handler.onClose();
+    }
+
+    /**
+     * Receives decoded playback events from the stream
+     */
+    public interface Handler {
+
+        /**
+         * Called once the Socket.IO namespace is joined
+         */
+        void onOpen();
+
+        /**
+         * Called for every API:Playback event
+         */
+        void onPlaybackEvent(String type, JsonObject data);
+
+        /**
+         * Called when the stream closes or could not be opened
+         */
+        void onClose();
+    }
+}
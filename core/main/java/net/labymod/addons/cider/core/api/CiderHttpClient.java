@@ -0,0 +1,112 @@
+package net.labymod.addons.cider.core.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shared HTTP transport for the Cider RPC server
+ * Keeps connections alive between requests and applies the app token in one place
+ */
+public class CiderHttpClient {
+
+    public static final String DEFAULT_API_URL = "http://localhost:10767";
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient client;
+
+    private volatile String apiUrl;
+    private volatile String appToken;
+    private volatile boolean requireToken;
+
+    public CiderHttpClient(String apiUrl, String appToken) {
+        this.apiUrl = apiUrl != null ? apiUrl : DEFAULT_API_URL;
+        this.appToken = appToken;
+        this.requireToken = false;
+
+        // HTTP/1.1 keeps the pooled socket warm without attempting an h2c upgrade on every request
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(DEFAULT_TIMEOUT)
+            .build();
+    }
+
+    /**
+     * Update transport settings (URL, token, and whether token is required)
+     */
+    public void updateSettings(String apiUrl, String appToken, boolean requireToken) {
+        this.apiUrl = apiUrl != null ? apiUrl : DEFAULT_API_URL;
+        this.appToken = appToken;
+        this.requireToken = requireToken;
+    }
+
+    /**
+     * Send a GET request to the given API path asynchronously
+     * Cancelling the returned future aborts the exchange
+     */
+    public <T> CompletableFuture<HttpResponse<T>> getAsync(String path, Duration timeout, HttpResponse.BodyHandler<T> bodyHandler) {
+        return client.sendAsync(request(path, timeout).GET().build(), bodyHandler);
+    }
+
+    /**
+     * Send a HEAD request to the given API path asynchronously, any response means the server is reachable
+     */
+    public CompletableFuture<HttpResponse<Void>> headAsync(String path, Duration timeout) {
+        HttpRequest request = request(path, timeout)
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Send a body-less POST request to the given API path and return the status code
+     */
+    public int post(String path, Duration timeout) throws IOException, InterruptedException {
+        HttpRequest request = request(path, timeout)
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Open a WebSocket to the given API path on the same host
+     */
+    public CompletableFuture<WebSocket> newWebSocket(String path, WebSocket.Listener listener) {
+        WebSocket.Builder builder = client.newWebSocketBuilder()
+            .connectTimeout(DEFAULT_TIMEOUT);
+
+        String token = appToken;
+        if (requireToken && token != null && !token.isEmpty()) {
+            builder.header("apptoken", token);
+        }
+
+        // http(s):// -> ws(s)://
+        String url = apiUrl;
+        String socketUrl = url.startsWith("https://") ? "wss://" + url.substring(8)
+            : url.startsWith("http://") ? "ws://" + url.substring(7)
+            : url;
+        return builder.buildAsync(URI.create(socketUrl + path), listener);
+    }
+
+    private HttpRequest.Builder request(String path, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiUrl + path))
+            .timeout(timeout != null ? timeout : DEFAULT_TIMEOUT);
+
+        // Only send token if required and available
+        String token = appToken;
+        if (requireToken && token != null && !token.isEmpty()) {
+            builder.header("apptoken", token);
+        }
+
+        return builder;
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+}
@@ -2,6 +2,7 @@ package net.labymod.addons.cider.core.api;
 
 /**
  * Listener interface for Cider API events
+ * Callbacks run on the executor chosen at registration, see {@link ListenerRegistry}
  */
 public interface CiderListener {
 
@@ -24,4 +25,10 @@ public interface CiderListener {
      * Called when Cider disconnects
      */
     void onDisconnect();
+
+    /**
+     * Called when the connection state changes (only on transitions)
+     */
+    default void onConnectionStateChanged(ConnectionState previousState, ConnectionState state) {
+    }
 }
@@ -1,10 +1,5 @@
 package net.labymod.addons.cider.core.api;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-
 /**
  * Controller for Cider playback actions
  * Note: These endpoints don't exist in current Cider RPC API
@@ -12,17 +7,18 @@ import java.net.URL;
  */
 public class CiderPlaybackController {
 
-    private final String apiUrl;
-    private String appToken;
-    private boolean requireToken;
+    private final CiderHttpClient http;
 
     public CiderPlaybackController(String apiUrl) {
-        this.apiUrl = apiUrl != null ? apiUrl : "http://localhost:10767";
+        this(new CiderHttpClient(apiUrl, null));
+    }
+
+    public CiderPlaybackController(CiderHttpClient http) {
+        this.http = http;
     }
 
     public void updateSettings(String apiUrl, String appToken, boolean requireToken) {
-        this.appToken = appToken;
-        this.requireToken = requireToken;
+        http.updateSettings(apiUrl, appToken, requireToken);
     }
 
     /**
@@ -71,20 +67,7 @@ public class CiderPlaybackController {
      */
     public boolean seek(double seconds) {
         try {
-            URL url = new URL(apiUrl + "/api/v1/playback/seek?position=" + seconds);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-
-            if (requireToken && appToken != null && !appToken.isEmpty()) {
-                conn.setRequestProperty("apptoken", appToken);
-            }
-
-            conn.setConnectTimeout(2000);
-            conn.setReadTimeout(2000);
-
-            int responseCode = conn.getResponseCode();
-            conn.disconnect();
-
+            int responseCode = http.post("/api/v1/playback/seek?position=" + seconds, CiderHttpClient.DEFAULT_TIMEOUT);
             return responseCode == 200 || responseCode == 204;
         } catch (Exception e) {
             System.err.println("Failed to seek: " + e.getMessage());
@@ -98,20 +81,7 @@ public class CiderPlaybackController {
      */
     public boolean setVolume(double volume) {
         try {
-            URL url = new URL(apiUrl + "/api/v1/playback/volume?level=" + volume);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-
-            if (requireToken && appToken != null && !appToken.isEmpty()) {
-                conn.setRequestProperty("apptoken", appToken);
-            }
-
-            conn.setConnectTimeout(2000);
-            conn.setReadTimeout(2000);
-
-            int responseCode = conn.getResponseCode();
-            conn.disconnect();
-
+            int responseCode = http.post("/api/v1/playback/volume?level=" + volume, CiderHttpClient.DEFAULT_TIMEOUT);
             return responseCode == 200 || responseCode == 204;
         } catch (Exception e) {
             System.err.println("Failed to set volume: " + e.getMessage());
@@ -124,20 +94,7 @@ public class CiderPlaybackController {
      */
     private boolean sendPlaybackCommand(String command) {
         try {
-            URL url = new URL(apiUrl + "/api/v1/playback/" + command);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-
-            if (requireToken && appToken != null && !appToken.isEmpty()) {
-                conn.setRequestProperty("apptoken", appToken);
-            }
-
-            conn.setConnectTimeout(2000);
-            conn.setReadTimeout(2000);
-
-            int responseCode = conn.getResponseCode();
-            conn.disconnect();
-
+            int responseCode = http.post("/api/v1/playback/" + command, CiderHttpClient.DEFAULT_TIMEOUT);
             return responseCode == 200 || responseCode == 204;
         } catch (Exception e) {
             System.err.println("Failed to execute playback command '" + command + "': " + e.getMessage());
@@ -0,0 +1,83 @@
+package net.labymod.addons.cider.core.api;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every raw playback response and pushed event with its timestamp to a gzip compressed file
+ * The file can be played back with {@link CiderReplay} without a running Cider instance.
+ * <p>
+ * Format: magic, version, start time (epoch millis), then one record per response:
+ * offset since start (nanos), source (API path or stream event type), body length, body
+ */
+public class CiderRecorder implements Closeable {
+
+    static final int MAGIC = 0x43494452; // "CIDR"
+    static final int VERSION = 1;
+
+    /**
+     * Source prefix for pushed Socket.IO playback events, followed by the event type
+     */
+    public static final String STREAM_SOURCE_PREFIX = "stream:";
+
+    private final DataOutputStream out;
+    private final long startNanos;
+    private boolean closed;
+
+    public CiderRecorder(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))));
+        this.startNanos = System.nanoTime();
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Append a raw response, failures are reported once and stop the recording
+     */
+    public synchronized void record(String source, byte[] body) {
+        if (closed) {
+            return;
+        }
+
+        try {
+            out.writeLong(System.nanoTime() - startNanos);
+            out.writeUTF(source);
+            out.writeInt(body.length);
+            out.write(body);
+        } catch (IOException e) {
+            System.err.println("Failed to record Cider response: " + e.getMessage());
+            close();
+        }
+    }
+
+    public void record(String source, String body) {
+        record(source, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close Cider recording: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package net.labymod.addons.cider.core.api;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sequential reader for files written by {@link CiderRecorder}
+ */
+public class CiderRecording implements Closeable {
+
+    private final DataInputStream in;
+    private final long startMillis;
+
+    public CiderRecording(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))));
+
+        if (in.readInt() != CiderRecorder.MAGIC) {
+            in.close();
+            throw new IOException("Not a Cider recording: " + file);
+        }
+
+        int version = in.readUnsignedShort();
+        if (version != CiderRecorder.VERSION) {
+            in.close();
+            throw new IOException("Unsupported Cider recording version " + version);
+        }
+
+        this.startMillis = in.readLong();
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return the record, or null at the end of the recording
+     */
+    public Entry next() throws IOException {
+        long offsetNanos;
+        try {
+            offsetNanos = in.readLong();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        String source = in.readUTF();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new Entry(offsetNanos, source, body);
+    }
+
+    /**
+     * Wall clock time the recording was started at (epoch millis)
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * A single recorded response
+     */
+    public static class Entry {
+        private final long offsetNanos;
+        private final String source;
+        private final byte[] body;
+
+        Entry(long offsetNanos, String source, byte[] body) {
+            this.offsetNanos = offsetNanos;
+            this.source = source;
+            this.body = body;
+        }
+
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
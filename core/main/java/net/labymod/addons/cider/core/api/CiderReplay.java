@@ -0,0 +1,98 @@
+package net.labymod.addons.cider.core.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a {@link CiderRecorder} file back through a {@link ReplayPlaybackSource}
+ * Listeners receive the same callbacks as during the recorded session, at real or accelerated speed,
+ * so the widget and event pipeline can be measured without a running Cider instance
+ */
+public class CiderReplay {
+
+    private final ReplayPlaybackSource source;
+    private final Path file;
+    private final double speed;
+
+    private volatile boolean running;
+
+    /**
+     * @param speed playback speed relative to the recording (1 = real time, 60 = an hour per minute),
+     *              0 or less replays as fast as possible
+     */
+    public CiderReplay(ReplayPlaybackSource source, Path file, double speed) {
+        this.source = source;
+        this.file = file;
+        this.speed = speed;
+    }
+
+    /**
+     * Start the replay on its own daemon thread
+     *
+     * @return future completing with the number of replayed records once the recording ends or {@link #stop()} is called
+     */
+    public synchronized CompletableFuture<Long> start() {
+        if (running) {
+            throw new IllegalStateException("Replay already running");
+        }
+
+        running = true;
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                running = false;
+                source.end(this);
+            }
+        }, "Cider Replay");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Stop before the next record, nothing from this replay reaches the source afterwards
+     */
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private long run() throws IOException {
+        long count = 0;
+        try (CiderRecording recording = new CiderRecording(file)) {
+            if (!running || !source.begin(this)) {
+                return 0;
+            }
+            long startNanos = System.nanoTime();
+
+            CiderRecording.Entry entry;
+            while (running && source.isReplaying(this) && (entry = recording.next()) != null) {
+                if (speed > 0) {
+                    long dueNanos = startNanos + (long) (entry.getOffsetNanos() / speed);
+                    long waitNanos;
+                    while (running && (waitNanos = dueNanos - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(100)));
+                    }
+                    if (!running) {
+                        break;
+                    }
+                }
+
+                // Offset by one so the first record is never mistaken for "no previous sample"
+                source.replay(this, entry, entry.getOffsetNanos() + 1);
+                count++;
+            }
+        }
+        return count;
+    }
+}
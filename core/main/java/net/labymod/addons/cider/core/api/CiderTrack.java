@@ -1,10 +1,16 @@
 package net.labymod.addons.cider.core.api;
 
+import net.labymod.addons.cider.core.util.Hashing;
+import java.util.Objects;
+
 /**
  * Represents a track from Cider/Apple Music
  */
 public class CiderTrack {
 
+    private final String id;
+    private final long idHash;
+    private final String catalogId;
     private final String name;
     private final String artistName;
     private final String albumName;
@@ -12,9 +18,40 @@ public class CiderTrack {
     private final double duration;
     private final double currentTime;
     private final String genre;
+    private final boolean playing;
+    private final long anchorNanos;
 
     public CiderTrack(String name, String artistName, String albumName,
                      String artworkUrl, double duration, double currentTime, String genre) {
+        this(name, artistName, albumName, artworkUrl, duration, currentTime, genre, false, System.nanoTime());
+    }
+
+    /**
+     * @param playing     whether playback was running when the position was sampled
+     * @param anchorNanos {@link System#nanoTime()} at which {@code currentTime} was sampled
+     */
+    public CiderTrack(String name, String artistName, String albumName,
+                     String artworkUrl, double duration, double currentTime, String genre,
+                     boolean playing, long anchorNanos) {
+        this(null, name, artistName, albumName, artworkUrl, duration, currentTime, genre, playing, anchorNanos);
+    }
+
+    /**
+     * @param catalogId Apple Music catalog id ({@code playParams.id}), null if unknown
+     */
+    public CiderTrack(String catalogId, String name, String artistName, String albumName,
+                     String artworkUrl, double duration, double currentTime, String genre,
+                     boolean playing, long anchorNanos) {
+        this(identity(catalogId, name, artistName), catalogId, name, artistName, albumName, artworkUrl,
+            duration, currentTime, genre, playing, anchorNanos);
+    }
+
+    private CiderTrack(String id, String catalogId, String name, String artistName, String albumName,
+                       String artworkUrl, double duration, double currentTime, String genre,
+                       boolean playing, long anchorNanos) {
+        this.id = id;
+        this.idHash = Hashing.fnv1a64(id);
+        this.catalogId = catalogId;
         this.name = name;
         this.artistName = artistName;
         this.albumName = albumName;
@@ -22,13 +59,70 @@ public class CiderTrack {
         this.duration = duration;
         this.currentTime = currentTime;
         this.genre = genre;
+        this.playing = playing;
+        this.anchorNanos = anchorNanos;
     }
 
     /**
      * Get unique identifier for this track
+     * The catalog id when Cider reports one, otherwise name and artist
      */
     public String getId() {
-        return name + "|" + artistName;
+        return id;
+    }
+
+    /**
+     * Precomputed 64-bit hash of {@link #getId()}, cheap to compare and safe to use in resource paths
+     */
+    public long getIdHash() {
+        return idHash;
+    }
+
+    /**
+     * Apple Music catalog id, null for tracks without one (e.g. uploaded library tracks)
+     */
+    public String getCatalogId() {
+        return catalogId;
+    }
+
+    /**
+     * Whether both tracks have the same identity, the position is ignored
+     */
+    public boolean isSameTrack(CiderTrack other) {
+        return other != null && idHash == other.idHash && id.equals(other.id);
+    }
+
+    /**
+     * Whether the given identity fields describe this track (the playback position is not part of the identity)
+     */
+    public boolean hasSameIdentity(String catalogId, String name, String artistName, String albumName, String artworkUrl, double duration) {
+        return this.duration == duration
+            && Objects.equals(this.catalogId, catalogId)
+            && Objects.equals(this.name, name)
+            && Objects.equals(this.artistName, artistName)
+            && Objects.equals(this.albumName, albumName)
+            && Objects.equals(this.artworkUrl, artworkUrl);
+    }
+
+    /**
+     * Copy of this track with a new position sample
+     * All metadata (including the id) is shared with this instance
+     */
+    public CiderTrack withPosition(double currentTime, boolean playing, long anchorNanos) {
+        return new CiderTrack(id, catalogId, name, artistName, albumName, artworkUrl, duration, currentTime, genre, playing, anchorNanos);
+    }
+
+    /**
+     * Playback position extrapolated from the last sample using the monotonic clock
+     * Safe to call every frame, the result is clamped to the track duration
+     */
+    public double getExtrapolatedTime() {
+        if (!playing) {
+            return currentTime;
+        }
+
+        double position = currentTime + (System.nanoTime() - anchorNanos) / 1_000_000_000.0;
+        return duration > 0 ? Math.min(position, duration) : position;
     }
 
     // Getters
@@ -60,6 +154,21 @@ public class CiderTrack {
         return genre;
     }
 
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public long getAnchorNanos() {
+        return anchorNanos;
+    }
+
+    private static String identity(String catalogId, String name, String artistName) {
+        if (catalogId != null && !catalogId.isEmpty()) {
+            return "catalog:" + catalogId;
+        }
+        return name + "|" + artistName;
+    }
+
     @Override
     public String toString() {
         return String.format("%s - %s (%s)", artistName, name, albumName);
@@ -0,0 +1,32 @@
+package net.labymod.addons.cider.core.api;
+
+/**
+ * Connection state of {@link CiderAPI} towards the Cider RPC server
+ */
+public enum ConnectionState {
+
+    /**
+     * The API is stopped
+     */
+    DISCONNECTED,
+
+    /**
+     * Reachability is unknown, every cycle starts with a cheap TCP probe before any HTTP request
+     */
+    PROBING,
+
+    /**
+     * Requests succeed
+     */
+    CONNECTED,
+
+    /**
+     * Recent requests failed but Cider was reachable, the last known track is kept
+     */
+    DEGRADED,
+
+    /**
+     * Too many failures in a row, no HTTP requests are sent until a TCP probe succeeds after the cooldown
+     */
+    OPEN_CIRCUIT
+}
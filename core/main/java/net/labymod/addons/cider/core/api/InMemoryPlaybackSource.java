@@ -0,0 +1,70 @@
+package net.labymod.addons.cider.core.api;
+
+/**
+ * Playback source without any transport, state is set directly
+ * Lets widgets, events and benchmarks run without sockets or a Cider instance
+ */
+public class InMemoryPlaybackSource extends AbstractPlaybackSource {
+
+    private volatile boolean isInitialized;
+
+    @Override
+    public void initialize() {
+        if (isInitialized) {
+            return;
+        }
+
+        isInitialized = true;
+        transition(ConnectionState.CONNECTED);
+    }
+
+    @Override
+    public void stop() {
+        if (!isInitialized) {
+            return;
+        }
+
+        isInitialized = false;
+        transition(ConnectionState.DISCONNECTED);
+        if (!publishDisconnect()) {
+            notifyDisconnect();
+        }
+    }
+
+    /**
+     * Publish a track, null clears it
+     */
+    public void setTrack(CiderTrack track, boolean playing) {
+        if (track == null) {
+            publishDisconnect();
+            return;
+        }
+
+        applyState(track.withPosition(track.getCurrentTime(), playing, System.nanoTime()), playing);
+    }
+
+    /**
+     * Move the current track to a new position
+     */
+    public synchronized void setPosition(double currentTime) {
+        PlaybackSnapshot current = getSnapshot();
+        if (current.hasTrack()) {
+            applyState(current.getTrack().withPosition(currentTime, current.isPlaying(), System.nanoTime()), current.isPlaying());
+        }
+    }
+
+    /**
+     * Pause or resume the current track
+     */
+    public synchronized void setPlaying(boolean playing) {
+        PlaybackSnapshot current = getSnapshot();
+        if (current.hasTrack()) {
+            applyState(current.getTrack(), playing);
+        }
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return isInitialized;
+    }
+}
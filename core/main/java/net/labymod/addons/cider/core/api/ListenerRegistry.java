@@ -0,0 +1,118 @@
+package net.labymod.addons.cider.core.api;
+
+import net.labymod.addons.cider.core.metrics.CiderMetrics;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe registry of {@link CiderListener}s
+ * Every listener is called on its own executor, in event order, and isolated from the others:
+ * a slow or failing listener neither delays detection nor other subscribers
+ */
+public class ListenerRegistry {
+
+    /**
+     * Runs callbacks on the thread that detected the change (the poll or stream thread)
+     * Only for listeners that return immediately
+     */
+    public static final Executor DIRECT = Runnable::run;
+
+    /**
+     * Shared pool of daemon threads, the default for registered listeners
+     */
+    public static final Executor ASYNC = createAsyncPool();
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * Register a listener whose callbacks run on the given executor
+     */
+    public void register(CiderListener listener, Executor executor) {
+        registrations.add(new Registration(listener, executor));
+    }
+
+    /**
+     * Unregister a listener, callbacks already queued for it may still run
+     */
+    public void unregister(CiderListener listener) {
+        registrations.removeIf(registration -> registration.listener == listener);
+    }
+
+    /**
+     * Hand an event to every registered listener without waiting for any of them
+     */
+    public void dispatch(Consumer<CiderListener> event) {
+        for (Registration registration : registrations) {
+            registration.queue.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    event.accept(registration.listener);
+                } catch (Exception e) {
+                    CiderMetrics.get().recordError("Listener " + e.getClass().getSimpleName());
+                    System.err.println("Cider listener " + registration.listener + " failed: " + e.getMessage());
+                } finally {
+                    CiderMetrics.get().recordDispatch(System.nanoTime() - start);
+                }
+            });
+        }
+    }
+
+    private static ExecutorService createAsyncPool() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Cider Listener #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class Registration {
+        final CiderListener listener;
+        final SerialExecutor queue;
+
+        Registration(CiderListener listener, Executor executor) {
+            this.listener = listener;
+            this.queue = new SerialExecutor(executor);
+        }
+    }
+
+    /**
+     * Runs tasks one after another on a delegate executor, preserving submission order per listener
+     */
+    private static class SerialExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Executor delegate;
+
+        SerialExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (draining.compareAndSet(false, true)) {
+                delegate.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                draining.set(false);
+                // Pick up tasks that were queued between the last poll and releasing the flag
+            } while (!tasks.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package net.labymod.addons.cider.core.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes now-playing payloads into {@link CiderTrack}s
+ * The HTTP path streams the body with a {@link JsonReader} and skips everything CiderTrack does not need
+ * (previews, editorialNotes, ...) without building objects for it.
+ * When the identity fields still match the previous track, that track is reused with the new position instead of
+ * building a new one
+ */
+public class NowPlayingDecoder {
+
+    private static final String UNKNOWN_GENRE = "Unknown";
+
+    /**
+     * Decode a full now-playing response ({"status": ..., "info": {...}})
+     *
+     * @return the track, or null if the response carries no usable track
+     */
+    public CiderTrack decode(InputStream in) throws IOException {
+        return decode(in, null);
+    }
+
+    /**
+     * Decode a full now-playing response, reusing {@code previous} when only the position changed
+     * In that case the returned track shares all metadata with {@code previous} and only carries a new position sample
+     *
+     * @return the track, or null if the response carries no usable track
+     */
+    public CiderTrack decode(InputStream in, CiderTrack previous) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        CiderTrack track = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("info") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                track = readInfo(reader, previous);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return track;
+    }
+
+    /**
+     * Decode an already parsed info object (used for pushed stream events)
+     */
+    public CiderTrack decode(JsonObject info) {
+        if (!info.has("name") || !info.has("artistName") || !info.has("durationInMillis")) {
+            return null;
+        }
+
+        JsonObject artwork = info.has("artwork") && info.get("artwork").isJsonObject()
+            ? info.getAsJsonObject("artwork")
+            : null;
+        JsonArray genres = info.has("genreNames") && info.get("genreNames").isJsonArray()
+            ? info.getAsJsonArray("genreNames")
+            : null;
+
+        JsonObject playParams = info.has("playParams") && info.get("playParams").isJsonObject()
+            ? info.getAsJsonObject("playParams")
+            : null;
+
+        return new CiderTrack(
+            playParams != null && playParams.has("id") ? playParams.get("id").getAsString() : null,
+            info.get("name").getAsString(),
+            info.get("artistName").getAsString(),
+            info.has("albumName") ? info.get("albumName").getAsString() : "",
+            artwork != null && artwork.has("url") ? artwork.get("url").getAsString() : null,
+            info.get("durationInMillis").getAsLong() / 1000.0,
+            info.has("currentPlaybackTime") ? info.get("currentPlaybackTime").getAsDouble() : 0.0,
+            genres != null && genres.size() > 0 ? genres.get(0).getAsString() : UNKNOWN_GENRE,
+            false,
+            System.nanoTime()
+        );
+    }
+
+    private CiderTrack readInfo(JsonReader reader, CiderTrack previous) throws IOException {
+        String name = null;
+        String artistName = null;
+        String albumName = "";
+        String artworkUrl = null;
+        long durationInMillis = -1;
+        double currentPlaybackTime = 0.0;
+        String genre = UNKNOWN_GENRE;
+        String catalogId = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (field) {
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "artistName":
+                    artistName = reader.nextString();
+                    break;
+                case "albumName":
+                    albumName = reader.nextString();
+                    break;
+                case "durationInMillis":
+                    durationInMillis = reader.nextLong();
+                    break;
+                case "currentPlaybackTime":
+                    currentPlaybackTime = reader.nextDouble();
+                    break;
+                case "artwork":
+                    artworkUrl = readArtworkUrl(reader);
+                    break;
+                case "genreNames":
+                    genre = readFirstGenre(reader);
+                    break;
+                case "playParams":
+                    catalogId = readCatalogId(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (name == null || artistName == null || durationInMillis < 0) {
+            return null;
+        }
+
+        double duration = durationInMillis / 1000.0;
+        if (previous != null && previous.hasSameIdentity(catalogId, name, artistName, albumName, artworkUrl, duration)) {
+            return previous.withPosition(currentPlaybackTime, previous.isPlaying(), System.nanoTime());
+        }
+
+        return new CiderTrack(
+            catalogId,
+            name,
+            artistName,
+            albumName,
+            artworkUrl,
+            duration,
+            currentPlaybackTime,
+            genre,
+            false,
+            System.nanoTime()
+        );
+    }
+
+    private String readArtworkUrl(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String url = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("url") && reader.peek() == JsonToken.STRING) {
+                url = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return url;
+    }
+
+    private String readCatalogId(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String id = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            JsonToken token;
+            if (reader.nextName().equals("id") && ((token = reader.peek()) == JsonToken.STRING || token == JsonToken.NUMBER)) {
+                id = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return id;
+    }
+
+    private String readFirstGenre(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return UNKNOWN_GENRE;
+        }
+
+        String genre = UNKNOWN_GENRE;
+        reader.beginArray();
+        if (reader.hasNext()) {
+            if (reader.peek() == JsonToken.STRING) {
+                genre = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+        return genre;
+    }
+}
@@ -0,0 +1,58 @@
+package net.labymod.addons.cider.core.api;
+
+/**
+ * Infers the playing state from how far the position moved between two samples of the same track
+ * Saves the extra is-playing request on most polls
+ */
+public class PlayStateInference {
+
+    private static final double POSITION_EPSILON_S = 0.05;
+    private static final double MIN_INFERENCE_INTERVAL_S = 0.25;
+
+    private double lastPosition;
+    private long lastSampleNanos;
+
+    /**
+     * Record a sample and infer the playing state from the previous one
+     * Returns null when the sample is ambiguous (first sample, track change, seek)
+     *
+     * @param current the currently published track, used to detect track changes
+     * @param sampleNanos when the sample was taken, {@link System#nanoTime()} or a recorded timestamp
+     */
+    public synchronized Boolean infer(CiderTrack track, CiderTrack current, long sampleNanos) {
+        double previousPosition = lastPosition;
+        long previousSampleNanos = lastSampleNanos;
+        boolean sameTrack = track.isSameTrack(current);
+
+        lastPosition = track.getCurrentTime();
+        lastSampleNanos = sampleNanos;
+
+        if (!sameTrack || previousSampleNanos == 0L) {
+            return null;
+        }
+
+        double elapsed = (sampleNanos - previousSampleNanos) / 1_000_000_000.0;
+        double advanced = track.getCurrentTime() - previousPosition;
+
+        if (elapsed < MIN_INFERENCE_INTERVAL_S) {
+            return null;
+        }
+
+        if (Math.abs(advanced) < POSITION_EPSILON_S) {
+            return false;
+        }
+
+        if (advanced >= elapsed * 0.5 && advanced <= elapsed * 1.5 + POSITION_EPSILON_S) {
+            return true;
+        }
+
+        return null;
+    }
+
+    /**
+     * Forget the last sample, e.g. after a disconnect
+     */
+    public synchronized void reset() {
+        lastSampleNanos = 0L;
+    }
+}
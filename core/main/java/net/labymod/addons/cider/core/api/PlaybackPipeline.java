@@ -0,0 +1,84 @@
+package net.labymod.addons.cider.core.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decode and play state inference shared by the sources that read Cider payloads, live ({@link CiderAPI})
+ * or recorded ({@link ReplayPlaybackSource}), so both turn the same bytes into the same listener callbacks
+ */
+final class PlaybackPipeline {
+
+    private final NowPlayingDecoder decoder = new NowPlayingDecoder();
+    private final PlayStateInference inference = new PlayStateInference();
+
+    /**
+     * Decode a now-playing body, see {@link NowPlayingDecoder#decode(InputStream, CiderTrack)}
+     */
+    CiderTrack decodeNowPlaying(InputStream body, CiderTrack previous) throws IOException {
+        return decoder.decode(body, previous);
+    }
+
+    /**
+     * @return the inferred play state, or null if the is-playing endpoint has to decide
+     */
+    Boolean inferPlaying(CiderTrack track, CiderTrack current, long sampleNanos) {
+        return inference.infer(track, current, sampleNanos);
+    }
+
+    void resetInference() {
+        inference.reset();
+    }
+
+    /**
+     * Accepts both {"is_playing": true} and a plain boolean body
+     */
+    static boolean parseIsPlaying(String body) {
+        body = body.trim();
+        if (body.startsWith("{")) {
+            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+            JsonElement playing = json.get("is_playing");
+            return playing != null && playing.getAsBoolean();
+        }
+
+        return Boolean.parseBoolean(body);
+    }
+
+    /**
+     * Apply a pushed Socket.IO playback event to {@code source}, unknown event types are ignored
+     */
+    void applyEvent(AbstractPlaybackSource source, String type, JsonObject data) {
+        switch (type) {
+            case "playbackStatus.nowPlayingItemDidChange":
+                CiderTrack changed = decoder.decode(data);
+                if (changed != null) {
+                    source.applyState(changed, source.getSnapshot().isPlaying());
+                }
+                break;
+            case "playbackStatus.playbackStateDidChange":
+                boolean playing = data.has("state") && "playing".equals(data.get("state").getAsString());
+                CiderTrack track = data.has("attributes") && data.get("attributes").isJsonObject()
+                    ? decoder.decode(data.getAsJsonObject("attributes"))
+                    : source.getSnapshot().getTrack();
+                if (track != null) {
+                    source.applyState(track, playing);
+                }
+                break;
+            case "playbackStatus.playbackTimeDidChange":
+                PlaybackSnapshot current = source.getSnapshot();
+                if (current.hasTrack() && data.has("currentPlaybackTime")) {
+                    boolean timePlaying = data.has("isPlaying") ? data.get("isPlaying").getAsBoolean() : current.isPlaying();
+                    source.applyState(
+                        current.getTrack().withPosition(data.get("currentPlaybackTime").getAsDouble(), timePlaying, System.nanoTime()),
+                        timePlaying
+                    );
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package net.labymod.addons.cider.core.api;
+
+/**
+ * Immutable view of the playback state published by {@link CiderAPI}
+ * Track and play state always belong together; the version increases with every publication so
+ * readers can skip work when nothing changed since they last looked
+ */
+public final class PlaybackSnapshot {
+
+    public static final PlaybackSnapshot EMPTY = new PlaybackSnapshot(null, false, 0L);
+
+    private final CiderTrack track;
+    private final boolean playing;
+    private final long version;
+
+    private PlaybackSnapshot(CiderTrack track, boolean playing, long version) {
+        this.track = track;
+        this.playing = playing;
+        this.version = version;
+    }
+
+    /**
+     * Successor snapshot with the next version
+     */
+    public PlaybackSnapshot next(CiderTrack track, boolean playing) {
+        return new PlaybackSnapshot(track, playing, version + 1);
+    }
+
+    public CiderTrack getTrack() {
+        return track;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean hasTrack() {
+        return track != null;
+    }
+}
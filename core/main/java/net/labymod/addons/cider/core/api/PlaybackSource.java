@@ -0,0 +1,56 @@
+package net.labymod.addons.cider.core.api;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Source of Cider playback state
+ * HUD widgets, sharing and events only depend on this interface, so the transport behind it
+ * (polling, streaming, a recorded replay or an in-memory fake) can be swapped freely
+ */
+public interface PlaybackSource {
+
+    /**
+     * Start delivering playback state
+     */
+    void initialize();
+
+    /**
+     * Stop delivering playback state and release resources
+     */
+    void stop();
+
+    boolean isInitialized();
+
+    /**
+     * Latest published playback state; read it once per frame instead of combining getCurrentTrack() and isPlaying()
+     */
+    PlaybackSnapshot getSnapshot();
+
+    default CiderTrack getCurrentTrack() {
+        return getSnapshot().getTrack();
+    }
+
+    default boolean isPlaying() {
+        return getSnapshot().isPlaying();
+    }
+
+    ConnectionState getConnectionState();
+
+    /**
+     * Register a listener for Cider events, called on the shared async pool
+     */
+    default void registerListener(CiderListener listener) {
+        registerListener(listener, ListenerRegistry.ASYNC);
+    }
+
+    /**
+     * Register a listener for Cider events, called on the given executor
+     * (e.g. {@link ListenerRegistry#DIRECT} for the source's own thread or the render thread)
+     */
+    void registerListener(CiderListener listener, Executor executor);
+
+    /**
+     * Unregister a listener
+     */
+    void unregisterListener(CiderListener listener);
+}
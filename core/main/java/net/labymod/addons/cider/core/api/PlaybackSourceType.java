@@ -0,0 +1,20 @@
+package net.labymod.addons.cider.core.api;
+
+/**
+ * Playback source implementations selectable in the configuration
+ * {@link InMemoryPlaybackSource} is not listed, it is only created programmatically (tests, benchmarks)
+ */
+public enum PlaybackSourceType {
+    /**
+     * Adaptive HTTP polling only
+     */
+    POLLING,
+    /**
+     * Socket.IO push events, polling while the stream is unavailable
+     */
+    STREAMING,
+    /**
+     * Replays a file written by {@link CiderRecorder}
+     */
+    REPLAY
+}
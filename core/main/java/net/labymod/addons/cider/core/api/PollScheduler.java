@@ -0,0 +1,76 @@
+package net.labymod.addons.cider.core.api;
+
+/**
+ * Decides how long to wait before the next poll based on the last result
+ * Backs off while Cider is unreachable, slows down while paused and polls in a short burst around the predicted track end
+ */
+public class PollScheduler {
+
+    private static final long PLAYING_INTERVAL_MS = 1000;
+    private static final long PAUSED_INTERVAL_MS = 5000;
+    private static final long BURST_INTERVAL_MS = 250;
+    private static final long BURST_WINDOW_MS = 2000;
+    private static final int MAX_BURST_POLLS = 16;
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private int failures;
+    private int burstPolls;
+
+    /**
+     * Delay after a poll that could not reach Cider (exponential backoff)
+     */
+    public synchronized long onFailure() {
+        burstPolls = 0;
+        int shift = Math.min(failures, 5);
+        failures++;
+        return Math.min(MAX_BACKOFF_MS, MIN_BACKOFF_MS << shift);
+    }
+
+    /**
+     * Delay after a poll that reached Cider while nothing is loaded
+     */
+    public synchronized long onIdle() {
+        failures = 0;
+        burstPolls = 0;
+        return PAUSED_INTERVAL_MS;
+    }
+
+    /**
+     * Delay after a successful poll
+     */
+    public synchronized long onSuccess(CiderTrack track, boolean playing) {
+        failures = 0;
+
+        if (!playing) {
+            burstPolls = 0;
+            return PAUSED_INTERVAL_MS;
+        }
+
+        double duration = track.getDuration();
+        if (duration <= 0) {
+            burstPolls = 0;
+            return PLAYING_INTERVAL_MS;
+        }
+
+        long remainingMs = (long) ((duration - track.getCurrentTime()) * 1000);
+        if (remainingMs <= BURST_WINDOW_MS) {
+            // Give up bursting if the track change never shows up (e.g. stopped at queue end)
+            return burstPolls++ < MAX_BURST_POLLS ? BURST_INTERVAL_MS : PLAYING_INTERVAL_MS;
+        }
+
+        burstPolls = 0;
+
+        // Land the next poll right at the start of the burst window
+        long untilBurst = remainingMs - BURST_WINDOW_MS;
+        return Math.max(BURST_INTERVAL_MS, Math.min(PLAYING_INTERVAL_MS, untilBurst));
+    }
+
+    /**
+     * Forget all history, e.g. when polling restarts
+     */
+    public synchronized void reset() {
+        failures = 0;
+        burstPolls = 0;
+    }
+}
@@ -0,0 +1,192 @@
+package net.labymod.addons.cider.core.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.labymod.addons.cider.core.metrics.CiderMetrics;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Reads the upcoming items of Cider's playback queue on every track change and hands them to a warmer
+ * (e.g. artwork download and texture upload), so the next track change finds its resources ready
+ */
+public class QueuePrefetcher implements CiderListener {
+
+    public static final String QUEUE_PATH = "/api/v1/playback/queue";
+    public static final int DEFAULT_LOOKAHEAD = 3;
+
+    private final CiderHttpClient http;
+    private final Consumer<CiderTrack> warmer;
+    private final int lookahead;
+    private final NowPlayingDecoder decoder = new NowPlayingDecoder();
+    private final CiderMetrics metrics = CiderMetrics.get();
+
+    private volatile CompletableFuture<?> inFlightRequest;
+
+    public QueuePrefetcher(CiderHttpClient http, Consumer<CiderTrack> warmer) {
+        this(http, warmer, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * @param lookahead how many upcoming tracks to warm
+     */
+    public QueuePrefetcher(CiderHttpClient http, Consumer<CiderTrack> warmer, int lookahead) {
+        this.http = http;
+        this.warmer = warmer;
+        this.lookahead = lookahead;
+    }
+
+    @Override
+    public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+        if (newTrack != null) {
+            prefetch(newTrack);
+        }
+    }
+
+    @Override
+    public void onPlaybackChanged(boolean isPlaying) {
+    }
+
+    @Override
+    public void onPositionChanged(double currentTime, double duration) {
+    }
+
+    @Override
+    public void onDisconnect() {
+        cancel();
+    }
+
+    /**
+     * Fetch the queue and warm the tracks following {@code current}
+     * A newer call supersedes a request that is still running
+     *
+     * @return the warmed tracks, empty if the queue could not be read
+     */
+    public CompletableFuture<List<CiderTrack>> prefetch(CiderTrack current) {
+        cancel();
+
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> request = http.getAsync(
+            QUEUE_PATH,
+            CiderHttpClient.DEFAULT_TIMEOUT,
+            HttpResponse.BodyHandlers.ofByteArray()
+        );
+        this.inFlightRequest = request;
+
+        return request.thenApply(response -> {
+            metrics.recordRequest(QUEUE_PATH, System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                metrics.recordError("HTTP " + response.statusCode());
+                return Collections.<CiderTrack>emptyList();
+            }
+            byte[] body = response.body();
+            metrics.recordBytesRead(body.length);
+
+            long parseStart = System.nanoTime();
+            JsonElement json = JsonParser.parseReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)
+            );
+            List<CiderTrack> upcoming = upcoming(items(json), current);
+            metrics.recordParse(System.nanoTime() - parseStart);
+
+            for (CiderTrack track : upcoming) {
+                warmer.accept(track);
+            }
+            return upcoming;
+        }).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                metrics.recordError(cause);
+            }
+            return Collections.emptyList();
+        });
+    }
+
+    /**
+     * Abort a running queue request
+     */
+    public void cancel() {
+        CompletableFuture<?> request = this.inFlightRequest;
+        if (request != null) {
+            request.cancel(true);
+            this.inFlightRequest = null;
+        }
+    }
+
+    /**
+     * The next tracks after {@code current}, or the head of the queue if it is not part of it
+     */
+    List<CiderTrack> upcoming(JsonArray items, CiderTrack current) {
+        int start = 0;
+        for (int i = 0; i < items.size(); i++) {
+            JsonObject attributes = attributes(items.get(i));
+            if (attributes != null && isCurrent(attributes, current)) {
+                start = i + 1;
+                break;
+            }
+        }
+
+        List<CiderTrack> upcoming = new ArrayList<>(lookahead);
+        for (int i = start; i < items.size() && upcoming.size() < lookahead; i++) {
+            JsonObject attributes = attributes(items.get(i));
+            CiderTrack track = attributes != null ? decoder.decode(attributes) : null;
+            if (track != null && !track.isSameTrack(current)) {
+                upcoming.add(track);
+            }
+        }
+        return upcoming;
+    }
+
+    // Compares the raw fields, decoding every queue item just to find the current one would be wasted work
+    private boolean isCurrent(JsonObject attributes, CiderTrack current) {
+        if (current.getCatalogId() != null) {
+            JsonElement playParams = attributes.get("playParams");
+            return playParams != null && playParams.isJsonObject()
+                && playParams.getAsJsonObject().has("id")
+                && current.getCatalogId().equals(playParams.getAsJsonObject().get("id").getAsString());
+        }
+
+        return attributes.has("name") && attributes.has("artistName")
+            && Objects.equals(current.getName(), attributes.get("name").getAsString())
+            && Objects.equals(current.getArtistName(), attributes.get("artistName").getAsString());
+    }
+
+    /**
+     * Queue items either as a bare array or wrapped in {"queue": [...]}
+     */
+    private static JsonArray items(JsonElement root) {
+        if (root.isJsonArray()) {
+            return root.getAsJsonArray();
+        }
+        if (root.isJsonObject() && root.getAsJsonObject().has("queue") && root.getAsJsonObject().get("queue").isJsonArray()) {
+            return root.getAsJsonObject().getAsJsonArray("queue");
+        }
+        return new JsonArray();
+    }
+
+    /**
+     * Track fields of a queue item, which carries them in "attributes" like a MusicKit resource
+     */
+    private static JsonObject attributes(JsonElement item) {
+        if (!item.isJsonObject()) {
+            return null;
+        }
+
+        JsonObject object = item.getAsJsonObject();
+        return object.has("attributes") && object.get("attributes").isJsonObject()
+            ? object.getAsJsonObject("attributes")
+            : object;
+    }
+}
@@ -0,0 +1,146 @@
+package net.labymod.addons.cider.core.api;
+
+import com.google.gson.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Playback source that replays a {@link CiderRecorder} file instead of talking to Cider
+ * Recorded responses go through the same decode and inference pipeline as a live {@link CiderAPI}
+ */
+public class ReplayPlaybackSource extends AbstractPlaybackSource {
+
+    private final Path file;
+    private final double speed;
+    private final PlaybackPipeline pipeline = new PlaybackPipeline();
+    private CiderReplay replay;
+
+    // The replay currently feeding this source, records of any other (stopped) replay are dropped
+    private volatile CiderReplay session;
+    private CiderTrack pendingTrack;
+
+    /**
+     * @param speed see {@link CiderReplay#CiderReplay(ReplayPlaybackSource, Path, double)}
+     */
+    public ReplayPlaybackSource(Path file, double speed) {
+        this.file = file;
+        this.speed = speed;
+    }
+
+    @Override
+    public synchronized void initialize() {
+        if (replay != null && replay.isRunning()) {
+            return;
+        }
+
+        replay = new CiderReplay(this, file, speed);
+        replay.start().exceptionally(error -> {
+            System.err.println("Cider replay of " + file + " failed: " + error.getMessage());
+            return 0L;
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        CiderReplay previous = replay;
+        replay = null;
+        if (previous != null) {
+            previous.stop();
+            end(previous);
+        }
+    }
+
+    /**
+     * Start accepting recorded responses from {@code owner}
+     *
+     * @return false if {@code owner} was stopped or replaced meanwhile
+     */
+    synchronized boolean begin(CiderReplay owner) {
+        if (owner != replay) {
+            return false;
+        }
+
+        session = owner;
+        pendingTrack = null;
+        pipeline.resetInference();
+        transition(ConnectionState.CONNECTED);
+        return true;
+    }
+
+    /**
+     * Feed one recorded response through the same decode, state and listener pipeline as a live poll
+     *
+     * @param sampleNanos recorded timestamp, used instead of the wall clock for play state inference
+     */
+    synchronized void replay(CiderReplay owner, CiderRecording.Entry entry, long sampleNanos) {
+        if (owner != session) {
+            return;
+        }
+
+        String source = entry.getSource();
+        byte[] body = entry.getBody();
+
+        try {
+            if (source.startsWith(CiderRecorder.STREAM_SOURCE_PREFIX)) {
+                pipeline.applyEvent(
+                    this,
+                    source.substring(CiderRecorder.STREAM_SOURCE_PREFIX.length()),
+                    JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject()
+                );
+            } else if (CiderAPI.NOW_PLAYING_PATH.equals(source)) {
+                CiderTrack track = body.length > 0
+                    ? pipeline.decodeNowPlaying(new ByteArrayInputStream(body), getSnapshot().getTrack())
+                    : null;
+                pendingTrack = null;
+                if (track == null) {
+                    disconnect();
+                    return;
+                }
+
+                Boolean playing = pipeline.inferPlaying(track, getSnapshot().getTrack(), sampleNanos);
+                if (playing == null) {
+                    // The live poll asked is-playing next, wait for its recorded answer
+                    pendingTrack = track;
+                } else {
+                    applyState(track, playing);
+                }
+            } else if (CiderAPI.IS_PLAYING_PATH.equals(source) && pendingTrack != null) {
+                boolean playing = body.length > 0 && PlaybackPipeline.parseIsPlaying(new String(body, StandardCharsets.UTF_8));
+                applyState(pendingTrack, playing);
+                pendingTrack = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Skip records we cannot decode, like a live poll would
+        }
+    }
+
+    /**
+     * Stop accepting recorded responses from {@code owner} and clear the track, a no-op for a replaced replay
+     */
+    synchronized void end(CiderReplay owner) {
+        if (owner != session) {
+            return;
+        }
+
+        session = null;
+        disconnect();
+        transition(ConnectionState.DISCONNECTED);
+    }
+
+    private void disconnect() {
+        if (publishDisconnect()) {
+            pipeline.resetInference();
+        }
+    }
+
+    boolean isReplaying(CiderReplay owner) {
+        return owner == session;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return session != null;
+    }
+}
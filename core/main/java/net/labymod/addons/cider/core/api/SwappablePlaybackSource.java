@@ -0,0 +1,94 @@
+package net.labymod.addons.cider.core.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Playback source that forwards to a replaceable delegate
+ * Widgets keep this instance for the whole session while the source behind it follows the settings;
+ * registered listeners move over to every new delegate
+ */
+public class SwappablePlaybackSource implements PlaybackSource {
+
+    private final List<Registration> registrations = new ArrayList<>();
+    private volatile PlaybackSource delegate;
+
+    public SwappablePlaybackSource(PlaybackSource delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Stop the current delegate and continue with {@code next}, which is not initialized
+     *
+     * @return the replaced delegate
+     */
+    public synchronized PlaybackSource swap(PlaybackSource next) {
+        PlaybackSource previous = delegate;
+        if (previous.isInitialized()) {
+            // Listeners still see the old source's disconnect
+            previous.stop();
+        }
+
+        for (Registration registration : registrations) {
+            previous.unregisterListener(registration.listener);
+            next.registerListener(registration.listener, registration.executor);
+        }
+        delegate = next;
+        return previous;
+    }
+
+    /**
+     * The source currently behind this one
+     */
+    public PlaybackSource current() {
+        return delegate;
+    }
+
+    @Override
+    public void initialize() {
+        delegate.initialize();
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return delegate.isInitialized();
+    }
+
+    @Override
+    public PlaybackSnapshot getSnapshot() {
+        return delegate.getSnapshot();
+    }
+
+    @Override
+    public ConnectionState getConnectionState() {
+        return delegate.getConnectionState();
+    }
+
+    @Override
+    public synchronized void registerListener(CiderListener listener, Executor executor) {
+        registrations.add(new Registration(listener, executor));
+        delegate.registerListener(listener, executor);
+    }
+
+    @Override
+    public synchronized void unregisterListener(CiderListener listener) {
+        registrations.removeIf(registration -> registration.listener == listener);
+        delegate.unregisterListener(listener);
+    }
+
+    private static class Registration {
+        private final CiderListener listener;
+        private final Executor executor;
+
+        private Registration(CiderListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package net.labymod.addons.cider.core.api;
+
+import net.labymod.api.util.concurrent.task.Task;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the delayed one-shot tasks of a playback source (next poll, stream retry, ping watchdog)
+ * In game this is LabyMod's task system, tests and benchmarks run without the game and pass an executor
+ */
+@FunctionalInterface
+public interface TaskScheduler {
+
+    TaskScheduler LABYMOD = (task, delayMs) -> {
+        Task scheduled = Task.builder(task).delay(delayMs, TimeUnit.MILLISECONDS).build();
+        scheduled.execute();
+        return scheduled::cancel;
+    };
+
+    /**
+     * Run {@code task} once after {@code delayMs} milliseconds
+     */
+    Scheduled schedule(Runnable task, long delayMs);
+
+    static TaskScheduler of(ScheduledExecutorService executor) {
+        return (task, delayMs) -> {
+            ScheduledFuture<?> future = executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            return () -> future.cancel(false);
+        };
+    }
+
+    /**
+     * Handle of a scheduled task
+     */
+    @FunctionalInterface
+    interface Scheduled {
+        void cancel();
+    }
+}
@@ -0,0 +1,26 @@
+package net.labymod.addons.cider.core.events;
+
+import net.labymod.addons.cider.core.api.ConnectionState;
+import net.labymod.api.event.Event;
+
+/**
+ * Event fired when the connection state towards Cider changes
+ */
+public class CiderConnectionStateChangedEvent implements Event {
+
+    private final ConnectionState previousState;
+    private final ConnectionState state;
+
+    public CiderConnectionStateChangedEvent(ConnectionState previousState, ConnectionState state) {
+        this.previousState = previousState;
+        this.state = state;
+    }
+
+    public ConnectionState getPreviousState() {
+        return previousState;
+    }
+
+    public ConnectionState getState() {
+        return state;
+    }
+}
@@ -3,7 +3,8 @@ package net.labymod.addons.cider.core.events;
 import net.labymod.api.event.Event;
 
 /**
- * Event fired when playback position changes
+ * Playback position update
+ * Fired on the event bus at most once per second, {@link PositionEventPublisher} subscriptions pick their own rate
  */
 public class CiderPositionChangedEvent implements Event {
 
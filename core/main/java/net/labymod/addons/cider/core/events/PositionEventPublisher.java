@@ -0,0 +1,87 @@
+package net.labymod.addons.cider.core.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Demand-driven publisher for {@link CiderPositionChangedEvent}
+ * Each subscription is sampled at its own interval and receives the event directly, nothing goes through the event bus.
+ * The event is only allocated while a subscription is due
+ */
+public class PositionEventPublisher {
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribe to position events sampled at most once per interval
+     * An interval of 0 delivers every update the API produces. The consumer runs on the thread publishing updates
+     */
+    public Subscription subscribe(long interval, TimeUnit unit, Consumer<CiderPositionChangedEvent> consumer) {
+        Subscription subscription = new Subscription(unit.toNanos(Math.max(0, interval)), consumer);
+        this.subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Called for every position update of the API, cheap when nobody listens
+     */
+    public void publish(double currentTime, double duration) {
+        if (this.subscriptions.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        CiderPositionChangedEvent event = null;
+        for (Subscription subscription : this.subscriptions) {
+            if (!subscription.due(now)) {
+                continue;
+            }
+
+            if (event == null) {
+                event = new CiderPositionChangedEvent(currentTime, duration);
+            }
+            try {
+                subscription.consumer.accept(event);
+            } catch (Exception e) {
+                System.err.println("Position subscriber failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    /**
+     * Handle for an active subscription
+     */
+    public class Subscription {
+        private final long intervalNanos;
+        private final Consumer<CiderPositionChangedEvent> consumer;
+        private long lastFiredNanos;
+        private boolean fired;
+
+        private Subscription(long intervalNanos, Consumer<CiderPositionChangedEvent> consumer) {
+            this.intervalNanos = intervalNanos;
+            this.consumer = consumer;
+        }
+
+        private synchronized boolean due(long now) {
+            if (this.fired && now - this.lastFiredNanos < this.intervalNanos) {
+                return false;
+            }
+            this.fired = true;
+            this.lastFiredNanos = now;
+            return true;
+        }
+
+        /**
+         * Stop receiving position events through this subscription
+         */
+        public void unsubscribe() {
+            subscriptions.remove(this);
+        }
+    }
+}
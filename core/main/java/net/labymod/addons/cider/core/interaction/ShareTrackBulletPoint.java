@@ -3,6 +3,7 @@ package net.labymod.addons.cider.core.interaction;
 import net.kyori.adventure.text.Component;
 import net.labymod.addons.cider.core.CiderAddon;
 import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.PlaybackSnapshot;
 import net.labymod.api.Laby;
 import net.labymod.api.client.entity.player.Player;
 import net.labymod.api.client.gui.icon.Icon;
@@ -62,8 +63,9 @@ public class ShareTrackBulletPoint implements BulletPoint {
         }
 
         // Only show if we're currently playing something
+        PlaybackSnapshot snapshot = this.addon.getCiderAPI().getSnapshot();
         return this.addon.getCiderAPI().isInitialized()
-            && this.addon.getCiderAPI().getCurrentTrack() != null
-            && this.addon.getCiderAPI().isPlaying();
+            && snapshot.hasTrack()
+            && snapshot.isPlaying();
     }
 }
@@ -0,0 +1,114 @@
+package net.labymod.addons.cider.core.labymod.hudwidgets;
+
+import net.labymod.addons.cider.core.api.PlaybackSource;
+import net.labymod.addons.cider.core.metrics.CiderMetrics;
+import net.labymod.addons.cider.core.metrics.LatencyHistogram;
+import net.labymod.api.client.gui.hud.hudwidget.text.TextHudWidget;
+import net.labymod.api.client.gui.hud.hudwidget.text.TextHudWidgetConfig;
+import net.labymod.api.client.gui.hud.hudwidget.text.TextLine;
+import net.labymod.api.client.gui.icon.Icon;
+import java.util.Map;
+
+/**
+ * Debug HUD widget showing {@link CiderMetrics}, to tell stutter caused by the addon apart from a slow Cider
+ */
+public class CiderDiagnosticsHudWidget extends TextHudWidget<TextHudWidgetConfig> {
+    private static final int REFRESH_TICKS = 20;
+
+    private final Icon hudWidgetIcon;
+    private final PlaybackSource ciderAPI;
+    private final CiderMetrics metrics;
+
+    private TextLine stateLine;
+    private TextLine requestLine;
+    private TextLine errorLine;
+    private TextLine readLine;
+    private TextLine parseLine;
+    private TextLine dispatchLine;
+    private TextLine textureLine;
+    private int ticks;
+
+    public CiderDiagnosticsHudWidget(String id, Icon icon, PlaybackSource ciderAPI) {
+        super(id);
+        this.hudWidgetIcon = icon;
+        this.ciderAPI = ciderAPI;
+        this.metrics = CiderMetrics.get();
+    }
+
+    @Override
+    public void load(TextHudWidgetConfig config) {
+        super.load(config);
+        this.stateLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.state"), "-");
+        this.requestLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.requests"), "-");
+        this.errorLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.errors"), "-");
+        this.readLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.read"), "-");
+        this.parseLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.parse"), "-");
+        this.dispatchLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.dispatch"), "-");
+        this.textureLine = super.createLine(net.labymod.api.util.I18n.translate("cider.hud.diagnostics.textures"), "-");
+        this.setIcon(this.hudWidgetIcon);
+        this.refresh();
+    }
+
+    @Override
+    public void onTick(boolean isEditorContext) {
+        if (++this.ticks < REFRESH_TICKS) {
+            return;
+        }
+
+        this.ticks = 0;
+        this.refresh();
+    }
+
+    private void refresh() {
+        if (this.stateLine == null) {
+            return;
+        }
+
+        this.stateLine.updateAndFlush(this.ciderAPI.getConnectionState().name());
+
+        StringBuilder requests = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> entry : this.metrics.getRequestLatency().entrySet()) {
+            if (requests.length() > 0) {
+                requests.append(", ");
+            }
+            String endpoint = entry.getKey();
+            requests.append(endpoint.substring(endpoint.lastIndexOf('/') + 1))
+                .append(' ')
+                .append(format(entry.getValue()));
+        }
+        this.requestLine.updateAndFlush(requests.length() > 0 ? requests.toString() : "-");
+
+        long errorCount = this.metrics.getErrorCount();
+        String topCause = null;
+        long topCount = 0;
+        for (Map.Entry<String, Long> entry : this.metrics.getErrors().entrySet()) {
+            if (entry.getValue() > topCount) {
+                topCause = entry.getKey();
+                topCount = entry.getValue();
+            }
+        }
+        this.errorLine.updateAndFlush(topCause == null ? "0" : errorCount + " (" + topCause + " " + topCount + ")");
+
+        this.readLine.updateAndFlush(String.format("%.1f KB", this.metrics.getBytesRead() / 1024.0));
+        this.parseLine.updateAndFlush(format(this.metrics.getParseTime()));
+        this.dispatchLine.updateAndFlush(format(this.metrics.getDispatchTime()));
+        this.textureLine.updateAndFlush(format(this.metrics.getTextureLoadTime()));
+    }
+
+    /**
+     * "mean / p95 / max" in milliseconds
+     */
+    private static String format(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "-";
+        }
+
+        return String.format(
+            "%.1f / <%d / %.0f ms (%d)",
+            histogram.getMeanMillis(),
+            histogram.getPercentileMillis(0.95),
+            histogram.getMaxMillis(),
+            histogram.getCount()
+        );
+    }
+}
@@ -1,7 +1,7 @@
 package net.labymod.addons.cider.core.labymod.hudwidgets;
 
 import net.labymod.addons.cider.core.CiderAddon;
-import net.labymod.addons.cider.core.api.CiderAPI;
+import net.labymod.addons.cider.core.api.PlaybackSource;
 import net.labymod.addons.cider.core.events.*;
 import net.labymod.addons.cider.core.labymod.hudwidgets.elements.widgets.CiderWidget;
 import net.labymod.api.client.gui.hud.hudwidget.HudWidgetConfig;
@@ -11,27 +11,23 @@ import net.labymod.api.client.gui.screen.widget.widgets.hud.HudWidgetWidget;
 import net.labymod.api.client.gui.screen.widget.widgets.input.SwitchWidget.SwitchSetting;
 import net.labymod.api.configuration.loader.property.ConfigProperty;
 import net.labymod.api.event.Subscribe;
-import net.labymod.api.util.ThreadSafe;
 import net.labymod.api.util.bounds.area.RectangleAreaPosition;
 
 /**
  * HUD Widget displaying current Cider/Apple Music track
  */
 public class CiderHudWidget extends WidgetHudWidget<CiderHudWidget.CiderHudWidgetConfig> {
-    public static final String TRACK_CHANGE_REASON = "track_change";
-    public static final String PLAYBACK_CHANGE_REASON = "playback_change";
-    public static final String COVER_VISIBILITY_REASON = "cover_visibility";
-    public static final String CONNECT_REASON = "connect";
-
     private final CiderAddon addon;
-    private final CiderAPI ciderAPI;
+    private final PlaybackSource ciderAPI;
     private final Icon hudWidgetIcon;
+    private final HudUpdateCoalescer updateCoalescer;
 
-    public CiderHudWidget(String id, Icon icon, CiderAddon addon, CiderAPI ciderAPI) {
+    public CiderHudWidget(String id, Icon icon, CiderAddon addon, PlaybackSource ciderAPI) {
         super(id, CiderHudWidgetConfig.class);
         this.addon = addon;
         this.ciderAPI = ciderAPI;
         this.hudWidgetIcon = icon;
+        this.updateCoalescer = new HudUpdateCoalescer(this::applyUpdates);
     }
 
     @Override
@@ -49,7 +45,7 @@ public class CiderHudWidget extends WidgetHudWidget<CiderHudWidget.CiderHudWidge
         super.load(config);
         this.setIcon(this.hudWidgetIcon);
         config.showCover().addChangeListener((property, oldValue, newValue) ->
-            ThreadSafe.executeOnRenderThread(() -> this.requestUpdate(COVER_VISIBILITY_REASON))
+            this.updateCoalescer.request(HudUpdateReason.COVER_VISIBILITY)
         );
     }
 
@@ -64,50 +60,48 @@ public class CiderHudWidget extends WidgetHudWidget<CiderHudWidget.CiderHudWidge
 
     @Override
     public boolean isVisibleInGame() {
-        return this.ciderAPI.isInitialized() && this.ciderAPI.getCurrentTrack() != null;
+        return this.ciderAPI.isInitialized() && this.ciderAPI.getSnapshot().hasTrack();
     }
 
     @Subscribe
     public void onCiderConnect(CiderConnectEvent event) {
-        ThreadSafe.executeOnRenderThread(() -> {
-            if (!this.isEnabled()) {
-                return;
-            }
-            this.requestUpdate(CONNECT_REASON);
-        });
+        this.updateCoalescer.request(HudUpdateReason.CONNECT);
     }
 
     @Subscribe
     public void onCiderDisconnect(CiderDisconnectEvent event) {
-        ThreadSafe.executeOnRenderThread(() -> {
-            if (!this.isEnabled()) {
-                return;
-            }
-            this.requestUpdate(CONNECT_REASON);
-        });
+        this.updateCoalescer.request(HudUpdateReason.CONNECT);
     }
 
     @Subscribe
     public void onCiderTrackChanged(CiderTrackChangedEvent event) {
-        ThreadSafe.executeOnRenderThread(() -> {
-            if (!this.isEnabled()) {
-                return;
-            }
-            this.requestUpdate(TRACK_CHANGE_REASON);
-        });
+        // Always includes the cover: every displayed track takes its own reference on the shared artwork,
+        // a track of the same album gets the already loaded texture back from the icon cache
+        this.updateCoalescer.request(HudUpdateReason.TRACK_CHANGE);
     }
 
     @Subscribe
     public void onCiderPlaybackChanged(CiderPlaybackChangedEvent event) {
-        ThreadSafe.executeOnRenderThread(() -> {
-            if (!this.isEnabled()) {
-                return;
-            }
-            this.requestUpdate(PLAYBACK_CHANGE_REASON);
-        });
+        this.updateCoalescer.request(HudUpdateReason.CONTROLS);
+    }
+
+    /**
+     * Hand all regions dirtied since the last pass to the widget in a single update
+     * A re-initialization rebuilds everything, so it makes the other flags redundant
+     */
+    private void applyUpdates(int dirty) {
+        if (!this.isEnabled()) {
+            return;
+        }
+
+        if (HudUpdateReason.CONNECT.isSet(dirty)) {
+            dirty = HudUpdateReason.CONNECT.bit();
+        }
+
+        this.requestUpdate(HudUpdateReason.toReason(dirty));
     }
 
-    public CiderAPI ciderAPI() {
+    public PlaybackSource ciderAPI() {
         return this.ciderAPI;
     }
 
@@ -1,7 +1,8 @@
 package net.labymod.addons.cider.core.labymod.hudwidgets;
 
-import net.labymod.addons.cider.core.api.CiderAPI;
 import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.PlaybackSnapshot;
+import net.labymod.addons.cider.core.api.PlaybackSource;
 import net.labymod.addons.cider.core.events.CiderConnectEvent;
 import net.labymod.addons.cider.core.events.CiderDisconnectEvent;
 import net.labymod.addons.cider.core.events.CiderPlaybackChangedEvent;
@@ -17,15 +18,28 @@ import net.labymod.api.event.Subscribe;
  * Uses the TextHudWidget pattern with TextLine components
  */
 public class CiderTextHudWidget extends TextHudWidget<TextHudWidgetConfig> {
+    private static final int TEXT_REGIONS = HudUpdateReason.mask(
+        HudUpdateReason.CONNECT,
+        HudUpdateReason.TEXT,
+        HudUpdateReason.CONTROLS
+    );
+
     private TextLine trackLine;
     private TextLine artistLine;
     private final Icon hudWidgetIcon;
-    private final CiderAPI ciderAPI;
+    private final PlaybackSource ciderAPI;
+    private final HudUpdateCoalescer updateCoalescer;
 
-    public CiderTextHudWidget(String id, Icon icon, CiderAPI ciderAPI) {
+    public CiderTextHudWidget(String id, Icon icon, PlaybackSource ciderAPI) {
         super(id);
         this.hudWidgetIcon = icon;
         this.ciderAPI = ciderAPI;
+        // Both lines depend on text and play state only, cover and progress changes are ignored
+        this.updateCoalescer = new HudUpdateCoalescer(dirty -> {
+            if ((dirty & TEXT_REGIONS) != HudUpdateReason.NONE) {
+                this.updateTrack();
+            }
+        });
     }
 
     @Override
@@ -45,29 +59,30 @@ public class CiderTextHudWidget extends TextHudWidget<TextHudWidgetConfig> {
 
     @Override
     public boolean isVisibleInGame() {
+        PlaybackSnapshot snapshot = this.ciderAPI.getSnapshot();
         return this.ciderAPI.isInitialized() &&
-               this.ciderAPI.isPlaying() &&
-               this.ciderAPI.getCurrentTrack() != null;
+               snapshot.isPlaying() &&
+               snapshot.hasTrack();
     }
 
     @Subscribe
     public void onCiderConnect(CiderConnectEvent event) {
-        this.updateTrack();
+        this.updateCoalescer.request(HudUpdateReason.CONNECT);
     }
 
     @Subscribe
     public void onCiderDisconnect(CiderDisconnectEvent event) {
-        this.updateTrack();
+        this.updateCoalescer.request(HudUpdateReason.CONNECT);
     }
 
     @Subscribe
     public void onCiderTrackChanged(CiderTrackChangedEvent event) {
-        this.updateTrack();
+        this.updateCoalescer.request(HudUpdateReason.TRACK_CHANGE);
     }
 
     @Subscribe
     public void onCiderPlaybackChanged(CiderPlaybackChangedEvent event) {
-        this.updateTrack();
+        this.updateCoalescer.request(HudUpdateReason.CONTROLS);
     }
 
     private void updateTrack() {
@@ -75,8 +90,9 @@ public class CiderTextHudWidget extends TextHudWidget<TextHudWidgetConfig> {
             return;
         }
 
-        if (this.ciderAPI.isPlaying() && this.ciderAPI.getCurrentTrack() != null) {
-            CiderTrack track = this.ciderAPI.getCurrentTrack();
+        PlaybackSnapshot snapshot = this.ciderAPI.getSnapshot();
+        if (snapshot.isPlaying() && snapshot.hasTrack()) {
+            CiderTrack track = snapshot.getTrack();
             this.trackLine.updateAndFlush(track.getName());
             this.artistLine.updateAndFlush(track.getArtist());
         } else {
@@ -0,0 +1,53 @@
+package net.labymod.addons.cider.core.labymod.hudwidgets;
+
+import net.labymod.api.util.ThreadSafe;
+import java.util.function.IntConsumer;
+
+/**
+ * Collects HUD dirty flags raised between two render-thread passes and hands them over as one mask
+ * Bursts (e.g. reconnecting while the track changes) cost a single widget update instead of one per event
+ */
+public class HudUpdateCoalescer {
+    private final IntConsumer target;
+    private int pending = HudUpdateReason.NONE;
+    private boolean scheduled;
+
+    public HudUpdateCoalescer(IntConsumer target) {
+        this.target = target;
+    }
+
+    /**
+     * Mark a single region dirty, may be called from any thread
+     */
+    public void request(HudUpdateReason reason) {
+        this.request(reason.bit());
+    }
+
+    /**
+     * Mark all regions in the mask dirty, may be called from any thread
+     */
+    public void request(int mask) {
+        synchronized (this) {
+            this.pending |= mask;
+            if (this.scheduled) {
+                return;
+            }
+            this.scheduled = true;
+        }
+
+        ThreadSafe.executeOnRenderThread(this::flush);
+    }
+
+    private void flush() {
+        int mask;
+        synchronized (this) {
+            mask = this.pending;
+            this.pending = HudUpdateReason.NONE;
+            this.scheduled = false;
+        }
+
+        if (mask != HudUpdateReason.NONE) {
+            this.target.accept(mask);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.labymod.addons.cider.core.labymod.hudwidgets;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Typed dirty flags for Cider HUD widgets
+ * Reasons are combined into a bitmask, so a widget checks all of its dirty regions at once.
+ * Since {@code HudWidget.Updatable#update} only takes a string, every mask has a precomputed reason string
+ */
+public enum HudUpdateReason {
+    /**
+     * Connection changed, the widget is rebuilt from scratch
+     */
+    CONNECT("connect"),
+    /**
+     * The cover visibility setting changed
+     */
+    COVER_VISIBILITY("cover_visibility"),
+    /**
+     * Track and artist text
+     */
+    TEXT("text"),
+    /**
+     * Cover artwork
+     */
+    COVER("cover"),
+    /**
+     * Play/pause icon and control visibility
+     */
+    CONTROLS("controls"),
+    /**
+     * Total time and progress bar
+     */
+    PROGRESS("progress");
+
+    public static final int NONE = 0;
+    public static final int ALL = (1 << values().length) - 1;
+
+    /**
+     * Regions touched by a track change
+     */
+    public static final int TRACK_CHANGE = mask(TEXT, COVER, CONTROLS, PROGRESS);
+
+    private static final String PREFIX = "cider:";
+    private static final String[] REASONS = new String[ALL + 1];
+    private static final Map<String, Integer> MASKS = new HashMap<>();
+
+    static {
+        for (int mask = 0; mask <= ALL; mask++) {
+            REASONS[mask] = PREFIX + Integer.toHexString(mask);
+            MASKS.put(REASONS[mask], mask);
+        }
+
+        // Plain names still work for single reasons
+        for (HudUpdateReason reason : values()) {
+            MASKS.put(reason.id, reason.bit);
+        }
+    }
+
+    private final String id;
+    private final int bit;
+
+    HudUpdateReason(String id) {
+        this.id = id;
+        this.bit = 1 << this.ordinal();
+    }
+
+    public int bit() {
+        return this.bit;
+    }
+
+    public boolean isSet(int mask) {
+        return (mask & this.bit) != 0;
+    }
+
+    public static int mask(HudUpdateReason... reasons) {
+        int mask = NONE;
+        for (HudUpdateReason reason : reasons) {
+            mask |= reason.bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Reason string carrying the given mask, no allocation
+     */
+    public static String toReason(int mask) {
+        return REASONS[mask & ALL];
+    }
+
+    /**
+     * Mask carried by a reason string, a null or unknown reason marks everything dirty
+     */
+    public static int fromReason(@Nullable String reason) {
+        if (reason == null) {
+            return ALL;
+        }
+
+        Integer mask = MASKS.get(reason);
+        return mask != null ? mask : ALL;
+    }
+}
@@ -2,9 +2,12 @@ package net.labymod.addons.cider.core.labymod.hudwidgets.elements.widgets;
 
 import net.labymod.addons.cider.core.CiderAddon;
 import net.labymod.addons.cider.core.Textures;
-import net.labymod.addons.cider.core.api.CiderAPI;
 import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.PlaybackSnapshot;
+import net.labymod.addons.cider.core.api.PlaybackSource;
 import net.labymod.addons.cider.core.labymod.hudwidgets.CiderHudWidget;
+import net.labymod.addons.cider.core.labymod.hudwidgets.HudUpdateReason;
+import net.labymod.addons.cider.core.util.TimeFormat;
 import net.labymod.addons.cider.core.util.TrackUtil;
 import net.labymod.api.Laby;
 import net.labymod.api.client.component.Component;
@@ -29,9 +32,10 @@ import org.jetbrains.annotations.Nullable;
 public class CiderWidget extends FlexibleContentWidget implements HudWidget.Updatable {
     private static final String PROGRESS_VISIBLE_KEY = "--progress-visible";
     private static final String LARGE_PROGRESS_VISIBLE_KEY = "--large-progress-visible";
+    private static final int COVER_SIZE = 32;
 
     private final CiderHudWidget hudWidget;
-    private final CiderAPI ciderAPI;
+    private final PlaybackSource ciderAPI;
     private final boolean editorContext;
 
     private ComponentWidget trackWidget;
@@ -43,6 +47,7 @@ public class CiderWidget extends FlexibleContentWidget implements HudWidget.Upda
     private ComponentWidget totalTimeWidget;
 
     private int lastTickPosition = -1;
+    private long lastSnapshotVersion = -1;
 
     public CiderWidget(CiderHudWidget hudWidget, boolean editorContext) {
         this.hudWidget = hudWidget;
@@ -179,7 +184,8 @@ public class CiderWidget extends FlexibleContentWidget implements HudWidget.Upda
     public void tick() {
         super.tick();
 
-        boolean hasTrack = this.ciderAPI.getCurrentTrack() != null;
+        PlaybackSnapshot snapshot = this.ciderAPI.getSnapshot();
+        boolean hasTrack = snapshot.hasTrack();
         this.setVariable(PROGRESS_VISIBLE_KEY, hasTrack);
 
         if (!this.editorContext) {
@@ -195,12 +201,14 @@ public class CiderWidget extends FlexibleContentWidget implements HudWidget.Upda
             this.setVariable(LARGE_PROGRESS_VISIBLE_KEY, hasTrack);
         }
 
-        // Update current time display
-        CiderTrack track = this.ciderAPI.getCurrentTrack();
-        if (track != null && this.currentTimeWidget != null) {
-            int position = (int) track.getCurrentTime();
+        // Update current time display, nothing to do while paused and unchanged since the last tick
+        CiderTrack track = snapshot.getTrack();
+        boolean changed = snapshot.isPlaying() || snapshot.getVersion() != this.lastSnapshotVersion;
+        if (track != null && this.currentTimeWidget != null && changed) {
+            this.lastSnapshotVersion = snapshot.getVersion();
+            int position = (int) track.getExtrapolatedTime();
             if (this.lastTickPosition < 0 || this.lastTickPosition != position) {
-                String positionDisplay = String.format("%d:%02d", position / 60, position % 60);
+                String positionDisplay = TimeFormat.minutesSeconds(position);
                 this.currentTimeWidget.setComponent(Component.text(positionDisplay));
                 this.lastTickPosition = position;
             }
@@ -209,20 +217,13 @@ public class CiderWidget extends FlexibleContentWidget implements HudWidget.Upda
 
     @Override
     public void update(@Nullable String reason) {
-        if (reason == null || reason.equals("connect")) {
+        int dirty = HudUpdateReason.fromReason(reason);
+        if (HudUpdateReason.CONNECT.isSet(dirty)) {
             this.reInitialize();
             return;
         }
 
-        if (reason.equals("playback_change") && this.playPauseWidget != null) {
-            this.playPauseWidget.icon().set(this.ciderAPI.isPlaying() ? Textures.SpriteControls.PAUSE : Textures.SpriteControls.PLAY);
-        }
-
-        if (reason.equals("track_change")) {
-            this.updateTrack(this.ciderAPI.getCurrentTrack());
-        }
-
-        if (reason.equals("cover_visibility")) {
+        if (HudUpdateReason.COVER_VISIBILITY.isSet(dirty)) {
             boolean showCover = this.hudWidget.getConfig().showCover().get();
             if (showCover) {
                 this.removeId("no-cover");
@@ -230,34 +231,60 @@ public class CiderWidget extends FlexibleContentWidget implements HudWidget.Upda
                 this.addId("no-cover");
             }
         }
+
+        this.updateRegions(this.ciderAPI.getCurrentTrack(), dirty);
     }
 
     private void updateTrack(CiderTrack track) {
+        this.updateRegions(track, HudUpdateReason.ALL);
+    }
+
+    /**
+     * Redraw only the subcomponents marked dirty
+     */
+    private void updateRegions(CiderTrack track, int dirty) {
         if (this.trackWidget == null || this.artistWidget == null) {
             return;
         }
 
-        this.trackWidget.setComponent(Component.text(track == null ? net.labymod.api.util.I18n.translate("cider.hud.notPlaying") : track.getName()));
-        this.artistWidget.setComponent(Component.text(track == null ? net.labymod.api.util.I18n.translate("cider.hud.clickToRetry") : track.getArtistName()));
-        this.artistWidget.setVisible(true);
+        if (HudUpdateReason.TEXT.isSet(dirty)) {
+            this.trackWidget.setComponent(Component.text(track == null ? net.labymod.api.util.I18n.translate("cider.hud.notPlaying") : track.getName()));
+            this.artistWidget.setComponent(Component.text(track == null ? net.labymod.api.util.I18n.translate("cider.hud.clickToRetry") : track.getArtistName()));
+            this.artistWidget.setVisible(true);
+        }
 
-        if (track == null || track.getDuration() <= 0) {
-            if (this.controlsWidget != null) {
-                this.controlsWidget.setVisible(false);
+        boolean hasDuration = track != null && track.getDuration() > 0;
+        if (HudUpdateReason.CONTROLS.isSet(dirty) && this.controlsWidget != null) {
+            this.controlsWidget.setVisible(hasDuration);
+            if (this.playPauseWidget != null) {
+                this.playPauseWidget.icon().set(this.ciderAPI.isPlaying() ? Textures.SpriteControls.PAUSE : Textures.SpriteControls.PLAY);
             }
+        }
+
+        if (!hasDuration) {
             return;
         }
 
-        if (this.controlsWidget != null) {
-            this.controlsWidget.setVisible(true);
+        if (HudUpdateReason.PROGRESS.isSet(dirty)) {
+            int length = (int) track.getDuration();
+            String totalTimeDisplay = TimeFormat.minutesSeconds(length);
+            this.totalTimeWidget.setComponent(Component.text(totalTimeDisplay));
+            this.lastTickPosition = -1;
         }
 
-        int length = (int) track.getDuration();
-        String totalTimeDisplay = String.format("%d:%02d", length / 60, length % 60);
-        this.totalTimeWidget.setComponent(Component.text(totalTimeDisplay));
+        if (HudUpdateReason.COVER.isSet(dirty)) {
+            Icon icon = TrackUtil.createIcon(track, this.coverPixels());
+            this.coverWidget.icon().set(icon);
+        }
+    }
 
-        // Update cover artwork
-        Icon icon = TrackUtil.createIcon(track);
-        this.coverWidget.icon().set(icon);
+    /**
+     * Size the cover is drawn at in physical pixels, so the artwork is fetched no larger than needed
+     */
+    private int coverPixels() {
+        // Not laid out yet on the first update, fall back to the size from the stylesheet
+        float width = Math.max(COVER_SIZE, this.coverWidget.bounds().getWidth());
+        float scale = Laby.labyAPI().minecraft().minecraftWindow().getScale();
+        return (int) Math.ceil(width * Math.max(1.0F, scale));
     }
 }
@@ -1,7 +1,8 @@
 package net.labymod.addons.cider.core.labymod.hudwidgets.elements.widgets;
 
-import net.labymod.addons.cider.core.api.CiderAPI;
 import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.PlaybackSnapshot;
+import net.labymod.addons.cider.core.api.PlaybackSource;
 import net.labymod.api.client.gui.lss.property.LssProperty;
 import net.labymod.api.client.gui.lss.property.annotation.AutoWidget;
 import net.labymod.api.client.gui.screen.ScreenContext;
@@ -15,10 +16,10 @@ import net.labymod.api.util.math.MathHelper;
  */
 @AutoWidget
 public class ProgressBarWidget extends SimpleWidget {
-    private final CiderAPI ciderAPI;
+    private final PlaybackSource ciderAPI;
     private final LssProperty<Integer> foregroundColor = new LssProperty<>(0x00FF00);
 
-    public ProgressBarWidget(CiderAPI api) {
+    public ProgressBarWidget(PlaybackSource api) {
         this.ciderAPI = api;
     }
 
@@ -26,9 +27,11 @@ public class ProgressBarWidget extends SimpleWidget {
     public void renderWidget(ScreenContext context) {
         super.renderWidget(context);
 
-        CiderTrack track = ciderAPI.getCurrentTrack();
-        if (track != null && ciderAPI.isPlaying()) {
-            double currentTime = track.getCurrentTime();
+        PlaybackSnapshot snapshot = ciderAPI.getSnapshot();
+        CiderTrack track = snapshot.getTrack();
+        if (track != null && snapshot.isPlaying()) {
+            // Extrapolated between polls so the bar moves smoothly at any frame rate
+            double currentTime = track.getExtrapolatedTime();
             double duration = track.getDuration();
 
             if (duration > 0) {
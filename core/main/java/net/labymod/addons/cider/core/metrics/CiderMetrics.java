@@ -0,0 +1,123 @@
+package net.labymod.addons.cider.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight metrics for the Cider pipeline: request latency per endpoint, errors by cause,
+ * bytes read, parse time, listener dispatch time and artwork texture load time
+ * Everything is recorded with adders, so instrumented paths never block on each other
+ */
+public class CiderMetrics {
+
+    private static final CiderMetrics INSTANCE = new CiderMetrics();
+
+    private final Map<String, LatencyHistogram> requestLatency = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+    private final LatencyHistogram dispatchTime = new LatencyHistogram();
+    private final LatencyHistogram textureLoadTime = new LatencyHistogram();
+
+    public static CiderMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Round trip of one request, from sending it until its body was consumed
+     */
+    public void recordRequest(String endpoint, long nanos) {
+        requestLatency.computeIfAbsent(endpoint, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Count a failure, keyed by the simple class name of its root cause
+     */
+    public void recordError(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        recordError(cause.getClass().getSimpleName());
+    }
+
+    /**
+     * Count a failure under the given cause
+     */
+    public void recordError(String cause) {
+        errors.computeIfAbsent(cause, key -> new LongAdder()).increment();
+    }
+
+    public void recordBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void recordParse(long nanos) {
+        parseTime.record(nanos);
+    }
+
+    public void recordDispatch(long nanos) {
+        dispatchTime.record(nanos);
+    }
+
+    public void recordTextureLoad(long nanos) {
+        textureLoadTime.record(nanos);
+    }
+
+    /**
+     * Latency histograms by endpoint, sorted by endpoint
+     */
+    public Map<String, LatencyHistogram> getRequestLatency() {
+        return Collections.unmodifiableMap(new TreeMap<>(requestLatency));
+    }
+
+    /**
+     * Error counts by cause, sorted by cause
+     */
+    public Map<String, Long> getErrors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((cause, count) -> counts.put(cause, count.sum()));
+        return counts;
+    }
+
+    public long getErrorCount() {
+        long total = 0;
+        for (LongAdder count : errors.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public LatencyHistogram getParseTime() {
+        return parseTime;
+    }
+
+    public LatencyHistogram getDispatchTime() {
+        return dispatchTime;
+    }
+
+    public LatencyHistogram getTextureLoadTime() {
+        return textureLoadTime;
+    }
+
+    /**
+     * Forget everything recorded so far
+     */
+    public void reset() {
+        requestLatency.clear();
+        errors.clear();
+        bytesRead.reset();
+        parseTime.reset();
+        dispatchTime.reset();
+        textureLoadTime.reset();
+    }
+}
@@ -0,0 +1,82 @@
+package net.labymod.addons.cider.core.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two millisecond buckets (&lt;1ms, &lt;2ms, &lt;4ms ... &gt;=16s)
+ * Recording is a couple of adder increments, cheap enough for every poll
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 16;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+
+        long micros = nanos / 1000;
+        // Bucket 0 holds everything below 1ms, bucket n everything below 2^n ms
+        int bucket = micros < 1000 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros / 1000));
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Upper bound of the bucket containing the given percentile, in milliseconds
+     *
+     * @param percentile between 0 and 1
+     */
+    public long getPercentileMillis(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0L;
+        }
+
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= threshold) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+}
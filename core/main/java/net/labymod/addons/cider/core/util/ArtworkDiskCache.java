@@ -0,0 +1,326 @@
+package net.labymod.addons.cider.core.util;
+
+import net.labymod.api.util.logging.Logging;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent artwork store, one file per artwork URL named after the URL hash
+ * The modification time doubles as last access, once the directory grows past its cap the least recently used files are deleted.
+ * All file system work runs on the cache's own thread, callers only ever get futures
+ */
+public class ArtworkDiskCache implements Closeable {
+
+    private static final Duration DOWNLOAD_TIMEOUT = Duration.ofSeconds(10);
+    private static final String FILE_SUFFIX = ".img";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long STALE_TEMP_MS = 60000;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Logging logger;
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+
+    // -1 until the directory has been measured
+    private final AtomicLong totalBytes = new AtomicLong(-1);
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    public ArtworkDiskCache(Path directory, long maxBytes, Logging logger) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Cider Artwork Cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(DOWNLOAD_TIMEOUT)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Local copy of the artwork, or null if it has not been downloaded yet
+     * A hit counts as an access for pruning. Only called on the cache thread
+     */
+    private Path lookup(String url) {
+        Path file = fileFor(url);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Only affects the pruning order
+        }
+        return file;
+    }
+
+    /**
+     * Local copy of the artwork, downloading it first if necessary
+     * Concurrent requests for the same URL share one download
+     */
+    public CompletableFuture<Path> fetch(String url) {
+        CompletableFuture<Path> pending = new CompletableFuture<>();
+        CompletableFuture<Path> existing = downloads.putIfAbsent(url, pending);
+        if (existing != null) {
+            return existing;
+        }
+
+        execute(pending, () -> {
+            // Warm start: the cover is already on disk, no request at all
+            Path cached = lookup(url);
+            CompletableFuture<Path> file = cached != null ? CompletableFuture.completedFuture(cached) : download(url);
+            file.whenComplete((path, error) -> {
+                downloads.remove(url, pending);
+                if (error != null) {
+                    // Callers see the IOException itself, not the wrapper of the stage that failed
+                    pending.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    pending.complete(path);
+                }
+            });
+        });
+        return pending;
+    }
+
+    /**
+     * Bytes of the local copy of the artwork, downloading it first if necessary
+     * The file is read on the cache's thread, which also completes the future
+     */
+    public CompletableFuture<byte[]> read(String url) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        fetch(url).whenComplete((file, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            execute(result, () -> {
+                try {
+                    result.complete(Files.readAllBytes(file));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Forget the local copy of an artwork, e.g. because it could not be decoded as an image
+     */
+    public void invalidate(String url) {
+        execute(null, () -> {
+            Path file = fileFor(url);
+            try {
+                long size = Files.size(file);
+                if (deleteQuietly(file) && totalBytes.get() >= 0) {
+                    totalBytes.addAndGet(-size);
+                }
+            } catch (IOException ignored) {
+                // Not cached
+            }
+        });
+    }
+
+    private CompletableFuture<Path> download(String url) {
+        Path file = fileFor(url);
+        Path temp = directory.resolve(file.getFileName() + TEMP_SUFFIX);
+
+        HttpRequest request;
+        try {
+            Files.createDirectories(directory);
+            request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(DOWNLOAD_TIMEOUT)
+                .GET()
+                .build();
+        } catch (IOException | IllegalArgumentException e) {
+            CompletableFuture<Path> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofFile(temp))
+            .thenCompose(response -> {
+                try {
+                    if (response.statusCode() != 200) {
+                        throw new IOException("HTTP " + response.statusCode() + " for " + url);
+                    }
+                    if (!isImage(temp)) {
+                        throw new IOException("Not an image: " + url);
+                    }
+
+                    // Readers only ever see complete files
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    added(Files.size(file));
+                    return CompletableFuture.completedFuture(file);
+                } catch (IOException e) {
+                    deleteQuietly(temp);
+                    return CompletableFuture.failedFuture(e);
+                }
+            });
+    }
+
+    /**
+     * Stop the cache's thread, pending and later requests fail
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (CompletableFuture<Path> pending : downloads.values()) {
+            pending.completeExceptionally(new IOException("Artwork cache closed"));
+        }
+        downloads.clear();
+    }
+
+    /**
+     * Run on the cache's thread, failing {@code result} instead of throwing once the cache is closed
+     */
+    private void execute(CompletableFuture<?> result, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (result != null) {
+                result.completeExceptionally(new IOException("Artwork cache closed", e));
+            }
+        }
+    }
+
+    private void added(long bytes) {
+        long total = totalBytes.get() < 0 ? -1 : totalBytes.addAndGet(bytes);
+        if ((total < 0 || total > maxBytes) && pruning.compareAndSet(false, true)) {
+            execute(null, this::prune);
+        }
+    }
+
+    /**
+     * Measure the directory and delete least recently used files until it is under the cap again
+     */
+    private void prune() {
+        try {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                long staleBefore = System.currentTimeMillis() - STALE_TEMP_MS;
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(FILE_SUFFIX)) {
+                        files.add(file);
+                    } else if (name.endsWith(TEMP_SUFFIX) && Files.getLastModifiedTime(file).toMillis() < staleBefore) {
+                        // Leftover from an interrupted download
+                        deleteQuietly(file);
+                    }
+                }
+            }
+
+            long total = 0;
+            List<CachedFile> entries = new ArrayList<>(files.size());
+            for (Path file : files) {
+                try {
+                    CachedFile entry = new CachedFile(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+                    entries.add(entry);
+                    total += entry.size;
+                } catch (IOException ignored) {
+                    // Deleted concurrently
+                }
+            }
+
+            if (total > maxBytes) {
+                // Leave some headroom so that the next download does not immediately trigger another prune
+                long target = maxBytes - maxBytes / 10;
+                entries.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+                for (CachedFile entry : entries) {
+                    if (total <= target) {
+                        break;
+                    }
+                    if (deleteQuietly(entry.file)) {
+                        total -= entry.size;
+                    }
+                }
+            }
+
+            totalBytes.set(total);
+        } catch (IOException e) {
+            logger.error("Failed to prune artwork cache", e);
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    /**
+     * Whether the file starts like a PNG, JPEG, GIF or WebP image, so error pages never end up in the cache
+     */
+    private static boolean isImage(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int length;
+        try (InputStream in = Files.newInputStream(file)) {
+            length = in.readNBytes(header, 0, header.length);
+        }
+
+        return length >= 8 && startsWith(header, 0x89, 'P', 'N', 'G')
+            || length >= 3 && startsWith(header, 0xFF, 0xD8, 0xFF)
+            || length >= 6 && startsWith(header, 'G', 'I', 'F', '8')
+            || length >= 12 && startsWith(header, 'R', 'I', 'F', 'F') && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P';
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path fileFor(String url) {
+        return directory.resolve(Long.toHexString(Hashing.fnv1a64(url)) + FILE_SUFFIX);
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static class CachedFile {
+        final Path file;
+        final long size;
+        final long lastAccess;
+
+        CachedFile(Path file, long size, long lastAccess) {
+            this.file = file;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
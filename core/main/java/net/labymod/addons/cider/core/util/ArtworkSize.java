@@ -0,0 +1,46 @@
+package net.labymod.addons.cider.core.util;
+
+/**
+ * Resolves Apple Music artwork URL templates ({w}x{h}) to a concrete size
+ * Sizes are rounded up to a few power-of-two buckets so that consumers with similar sizes share one download and texture
+ */
+public final class ArtworkSize {
+
+    public static final int MIN_BUCKET = 64;
+    public static final int MAX_BUCKET = 1024;
+
+    private ArtworkSize() {
+    }
+
+    /**
+     * Smallest bucket that covers the given pixel size
+     */
+    public static int bucket(int pixels) {
+        int bucket = MIN_BUCKET;
+        while (bucket < pixels && bucket < MAX_BUCKET) {
+            bucket <<= 1;
+        }
+        return bucket;
+    }
+
+    /**
+     * Replace the size placeholders of an artwork URL, URLs without placeholders are returned unchanged
+     */
+    public static String resolve(String url, int size) {
+        if (url == null || url.indexOf('{') < 0) {
+            return url;
+        }
+
+        String dimension = Integer.toString(size);
+        return url.replace("{w}", dimension)
+            .replace("{h}", dimension)
+            .replace("{f}", "jpg");
+    }
+
+    /**
+     * Whether the URL is a template that can be fetched at any size
+     */
+    public static boolean isTemplate(String url) {
+        return url != null && url.contains("{w}");
+    }
+}
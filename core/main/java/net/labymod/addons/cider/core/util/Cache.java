@@ -1,57 +1,193 @@
 package net.labymod.addons.cider.core.util;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
- * Simple cache with expiration
+ * Bounded cache with expiration after last access and least-recently-used eviction
+ * Reads are lock-free; expired entries are swept in the background, so {@code onExpire} runs on time
+ * even for keys that are never asked for again. Pinned entries are neither expired nor evicted
  */
 public class Cache<T> {
-    private final Map<String, CacheEntry<T>> cache = new HashMap<>();
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long MAX_SWEEP_INTERVAL_MS = 60000;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Cider Cache Sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, CacheEntry<T>> cache = new ConcurrentHashMap<>();
     private final long expirationTime;
+    private final int maxEntries;
     private final Consumer<T> onExpire;
+    private final ScheduledFuture<?> sweepTask;
 
     public Cache(long expirationTime, Consumer<T> onExpire) {
+        this(expirationTime, DEFAULT_MAX_ENTRIES, onExpire);
+    }
+
+    /**
+     * @param maxEntries entries beyond this are evicted, least recently used first
+     */
+    public Cache(long expirationTime, int maxEntries, Consumer<T> onExpire) {
         this.expirationTime = expirationTime;
+        this.maxEntries = Math.max(1, maxEntries);
         this.onExpire = onExpire;
+
+        long sweepInterval = Math.max(1, Math.min(MAX_SWEEP_INTERVAL_MS, expirationTime / 4));
+        this.sweepTask = SWEEPER.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
     }
 
-    public synchronized T get(String key) {
+    public T get(String key) {
         CacheEntry<T> entry = cache.get(key);
         if (entry == null) {
             return null;
         }
 
-        if (System.currentTimeMillis() - entry.timestamp > expirationTime) {
-            cache.remove(key);
-            if (onExpire != null) {
-                onExpire.accept(entry.value);
-            }
+        long now = System.currentTimeMillis();
+        if (isExpired(entry, now)) {
+            remove(key, entry);
             return null;
         }
 
+        entry.lastAccess = now;
         return entry.value;
     }
 
-    public synchronized void push(String key, T value) {
-        cache.put(key, new CacheEntry<>(value, System.currentTimeMillis()));
+    public void push(String key, T value) {
+        CacheEntry<T> previous = cache.put(key, new CacheEntry<>(value, System.currentTimeMillis()));
+        if (previous != null && previous.value != value) {
+            release(previous.value);
+        }
+
+        if (cache.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * Keep the entry regardless of age and bound, e.g. while its value is on screen
+     *
+     * @return whether the key was present
+     */
+    public boolean pin(String key) {
+        CacheEntry<T> entry = cache.get(key);
+        if (entry == null) {
+            return false;
+        }
+
+        entry.pinned = true;
+        entry.lastAccess = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Make a pinned entry subject to expiration and eviction again, counting from now
+     */
+    public void unpin(String key) {
+        CacheEntry<T> entry = cache.get(key);
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+            entry.pinned = false;
+        }
+    }
+
+    public void clear() {
+        for (Map.Entry<String, CacheEntry<T>> entry : cache.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
     }
 
-    public synchronized void clear() {
-        if (onExpire != null) {
-            cache.values().forEach(entry -> onExpire.accept(entry.value));
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Release all entries and stop the background sweep
+     */
+    public void close() {
+        sweepTask.cancel(false);
+        clear();
+    }
+
+    /**
+     * Remove every expired entry
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, CacheEntry<T>> entry : cache.entrySet()) {
+            if (isExpired(entry.getValue(), now)) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Drop least recently used entries until the cache is back within its bound
+     * Only writers get here, and the cache is small, so a scan is cheaper than maintaining an access order
+     */
+    private synchronized void evict() {
+        while (cache.size() > maxEntries) {
+            String eldestKey = null;
+            CacheEntry<T> eldest = null;
+            for (Map.Entry<String, CacheEntry<T>> entry : cache.entrySet()) {
+                if (entry.getValue().pinned) {
+                    continue;
+                }
+                if (eldest == null || entry.getValue().lastAccess < eldest.lastAccess) {
+                    eldestKey = entry.getKey();
+                    eldest = entry.getValue();
+                }
+            }
+
+            // Everything left is pinned
+            if (eldest == null) {
+                return;
+            }
+            remove(eldestKey, eldest);
+        }
+    }
+
+    private boolean isExpired(CacheEntry<T> entry, long now) {
+        return !entry.pinned && now - entry.lastAccess > expirationTime;
+    }
+
+    /**
+     * Remove the entry if it is still mapped, releasing its value exactly once
+     */
+    private void remove(String key, CacheEntry<T> entry) {
+        if (cache.remove(key, entry)) {
+            release(entry.value);
+        }
+    }
+
+    private void release(T value) {
+        if (onExpire == null) {
+            return;
+        }
+
+        try {
+            onExpire.accept(value);
+        } catch (Exception e) {
+            System.err.println("Failed to release cached value: " + e.getMessage());
         }
-        cache.clear();
     }
 
     private static class CacheEntry<T> {
         final T value;
-        final long timestamp;
+        volatile long lastAccess;
+        volatile boolean pinned;
 
-        CacheEntry(T value, long timestamp) {
+        CacheEntry(T value, long lastAccess) {
             this.value = value;
-            this.timestamp = timestamp;
+            this.lastAccess = lastAccess;
         }
     }
 }
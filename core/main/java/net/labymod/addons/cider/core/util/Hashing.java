@@ -0,0 +1,22 @@
+package net.labymod.addons.cider.core.util;
+
+/**
+ * Small non-cryptographic hashes for identifiers and cache keys
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64-bit FNV-1a
+     */
+    public static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
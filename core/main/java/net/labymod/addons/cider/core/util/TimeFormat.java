@@ -0,0 +1,14 @@
+package net.labymod.addons.cider.core.util;
+
+/**
+ * Formatting of playback times for the HUD
+ */
+public class TimeFormat {
+
+    /**
+     * Format seconds as m:ss (e.g. 3:07)
+     */
+    public static String minutesSeconds(int seconds) {
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
@@ -2,68 +2,265 @@ package net.labymod.addons.cider.core.util;
 
 import net.labymod.addons.cider.core.Textures;
 import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.metrics.CiderMetrics;
 import net.labymod.api.Laby;
 import net.labymod.api.client.gui.icon.Icon;
 import net.labymod.api.client.resources.CompletableResourceLocation;
 import net.labymod.api.client.resources.ResourceLocation;
+import net.labymod.api.client.resources.texture.GameImage;
 import net.labymod.api.client.resources.texture.TextureDetails;
 import net.labymod.api.client.resources.texture.TextureRepository;
+import net.labymod.api.util.ThreadSafe;
+import net.labymod.api.util.logging.Logging;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Locale;
-import java.util.Objects;
-import java.util.function.Consumer;
+import java.util.Map;
 
 /**
  * Utility for creating track icons from artwork URLs
  */
 public class TrackUtil {
-    private static final Cache<Icon> ICON_CACHE = new Cache<>(1800000L, icon -> {
-        ResourceLocation resourceLocation = icon.getResourceLocation();
-        if (Objects.equals(resourceLocation, Textures.UNKNOWN_COVER.resource())) {
-            return;
+    private static final long MAX_ARTWORK_DISK_BYTES = 64L * 1024 * 1024;
+    // Survives restarts, null until the addon configured its data directory
+    private static volatile ArtworkDiskCache artworkDiskCache;
+    private static volatile Logging logger;
+
+    // Enough covers for the recent history, older ones are released instead of piling up over long sessions
+    private static final int MAX_CACHED_ICONS = 32;
+    private static final int DEFAULT_ICON_PIXELS = 64;
+    private static volatile int lastIconPixels = DEFAULT_ICON_PIXELS;
+    private static final Cache<SharedArtwork> ICON_CACHE = new Cache<>(1800000L, MAX_CACHED_ICONS, TrackUtil::releaseArtwork);
+
+    // One texture per normalised artwork URL, shared by every cached track that shows it (e.g. a whole album)
+    private static final Map<String, SharedArtwork> ARTWORK = new HashMap<>();
+
+    // Icon cache key currently on screen per size bucket, pinned so a long track or pause never releases it
+    private static final Map<Integer, String> DISPLAYED = new HashMap<>();
+
+    /**
+     * Keep downloaded artwork in {@code directory} across restarts
+     */
+    public static void configureDiskCache(Path directory, Logging logger) {
+        closeDiskCache();
+        TrackUtil.logger = logger;
+        artworkDiskCache = new ArtworkDiskCache(directory, MAX_ARTWORK_DISK_BYTES, logger);
+    }
+
+    /**
+     * Stop the disk cache's thread, artwork is loaded from the network until it is configured again
+     */
+    public static void closeDiskCache() {
+        ArtworkDiskCache diskCache = artworkDiskCache;
+        artworkDiskCache = null;
+        if (diskCache != null) {
+            diskCache.close();
         }
-        Laby.references().textureRepository().queueTextureRelease(resourceLocation);
-    });
+    }
+
+    /**
+     * Icon for consumers that do not know their size, enough for the HUD cover at common GUI scales
+     */
+    public static Icon createIcon(CiderTrack track) {
+        return createIcon(track, DEFAULT_ICON_PIXELS);
+    }
+
+    /**
+     * Start loading the icon of a track that is about to play, at the size icons were last requested at
+     * A later {@link #createIcon(CiderTrack, int)} for the track then returns the already loaded icon
+     */
+    public static synchronized void prefetchIcon(CiderTrack track) {
+        icon(track, lastIconPixels, false);
+    }
 
-    public static synchronized Icon createIcon(CiderTrack track) {
+    /**
+     * Icon to display for a track, it stays loaded until another track is displayed at the same size
+     *
+     * @param pixels size the icon is drawn at on screen, in physical pixels (widget size times GUI scale)
+     */
+    public static synchronized Icon createIcon(CiderTrack track, int pixels) {
+        lastIconPixels = pixels;
+        return icon(track, pixels, true);
+    }
+
+    private static Icon icon(CiderTrack track, int pixels, boolean display) {
         if (track == null || track.getArtworkUrl() == null || track.getArtworkUrl().isEmpty()) {
             return Icon.texture(Textures.UNKNOWN_COVER);
         }
 
-        String trackId = track.getId();
-        Icon cachedIcon = ICON_CACHE.get(trackId);
-        if (cachedIcon != null) {
-            return cachedIcon;
+        // Templated URLs are fetched per size bucket, anything else only exists in one size
+        String artworkUrl = track.getArtworkUrl();
+        int size = ArtworkSize.isTemplate(artworkUrl) ? ArtworkSize.bucket(pixels) : 0;
+
+        String key = size == 0 ? track.getId() : track.getId() + "@" + size;
+        SharedArtwork cached = ICON_CACHE.get(key);
+        if (cached != null) {
+            if (display) {
+                display(size, key);
+            }
+            return cached.icon;
+        }
+
+        String url = normalizeArtworkUrl(ArtworkSize.resolve(artworkUrl, size));
+        SharedArtwork artwork = ARTWORK.get(url);
+        if (artwork == null) {
+            artwork = loadArtwork(url);
+            ARTWORK.put(url, artwork);
+        }
+
+        artwork.references++;
+        ICON_CACHE.push(key, artwork);
+        if (display) {
+            display(size, key);
+        }
+        return artwork.icon;
+    }
+
+    private static void display(int size, String key) {
+        String previous = DISPLAYED.put(size, key);
+        if (previous != null && !previous.equals(key)) {
+            ICON_CACHE.unpin(previous);
         }
+        ICON_CACHE.pin(key);
+    }
 
+    private static SharedArtwork loadArtwork(String url) {
+        // The URL hash is always a valid path, no sanitising needed
+        String hash = Long.toHexString(Hashing.fnv1a64(url));
+        ResourceLocation resourceLocation = Laby.references().resources().resourceLocationFactory()
+            .create("cider", "artwork/" + hash);
         CompletableResourceLocation completable = new CompletableResourceLocation(Textures.UNKNOWN_COVER);
-        ResourceLocation resourceLocation = getResourceLocationForTrackId(trackId);
+        SharedArtwork artwork = new SharedArtwork(url, resourceLocation, completable);
 
-        registerTrackImage(track.getArtworkUrl(), resourceLocation, res -> {
-            completable.executeCompletableListeners(res);
-        });
+        registerTrackImage(artwork);
+        return artwork;
+    }
+
+    /**
+     * Drop one track's reference, the texture is released together with the last one
+     */
+    private static synchronized void releaseArtwork(SharedArtwork artwork) {
+        if (--artwork.references > 0) {
+            return;
+        }
 
-        Icon icon = Icon.completable(completable);
-        ICON_CACHE.push(trackId, icon);
-        return icon;
+        artwork.released = true;
+        ARTWORK.remove(artwork.url, artwork);
+        Laby.references().textureRepository().queueTextureRelease(artwork.resourceLocation);
     }
 
-    private static ResourceLocation getResourceLocationForTrackId(String trackId) {
-        return Laby.references().resources().resourceLocationFactory()
-            .create("cider", "track/" + trackId.toLowerCase(Locale.ENGLISH).replaceAll("[^a-z0-9-]", "_"));
+    /**
+     * Same artwork, same key: ignores case in scheme and host, surrounding whitespace and fragments
+     */
+    static String normalizeArtworkUrl(String url) {
+        String normalized = url.trim();
+        int fragment = normalized.indexOf('#');
+        if (fragment >= 0) {
+            normalized = normalized.substring(0, fragment);
+        }
+
+        int schemeEnd = normalized.indexOf("://");
+        if (schemeEnd < 0) {
+            return normalized;
+        }
+        int hostEnd = normalized.indexOf('/', schemeEnd + 3);
+        if (hostEnd < 0) {
+            hostEnd = normalized.length();
+        }
+        return normalized.substring(0, hostEnd).toLowerCase(Locale.ROOT) + normalized.substring(hostEnd);
     }
 
-    private static synchronized void registerTrackImage(String artworkUrl, ResourceLocation resourceLocation, Consumer<ResourceLocation> callback) {
-        if (artworkUrl == null || artworkUrl.isEmpty()) {
+    /**
+     * Load the artwork from the disk cache, downloading it there first if needed
+     * Reading and decoding the file run on the cache's thread, only the upload happens on the render thread
+     */
+    private static void registerTrackImage(SharedArtwork artwork) {
+        long start = System.nanoTime();
+        ArtworkDiskCache diskCache = artworkDiskCache;
+        if (diskCache == null) {
+            ThreadSafe.executeOnRenderThread(() -> loadRemote(artwork, start));
             return;
         }
 
+        diskCache.read(artwork.url).whenComplete((bytes, error) -> {
+            if (error != null) {
+                // Still show the cover if it cannot be stored, just load it straight from the network
+                ThreadSafe.executeOnRenderThread(() -> loadRemote(artwork, start));
+                return;
+            }
+
+            GameImage image;
+            try {
+                image = GameImage.IMAGE_PROVIDER.getImage(new ByteArrayInputStream(bytes));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Cached artwork could not be decoded, loading {} again: {}", artwork.url, e.getMessage());
+                diskCache.invalidate(artwork.url);
+                ThreadSafe.executeOnRenderThread(() -> loadRemote(artwork, start));
+                return;
+            }
+
+            ThreadSafe.executeOnRenderThread(() -> {
+                if (artwork.released || artwork.completed) {
+                    return;
+                }
+                image.uploadTextureAt(artwork.resourceLocation);
+                artwork.complete(artwork.resourceLocation, start);
+            });
+        });
+    }
+
+    private static void loadRemote(SharedArtwork artwork, long start) {
+        if (!artwork.released) {
+            loadTexture(artwork.url, artwork.resourceLocation, artwork, start);
+        }
+    }
+
+    private static void loadTexture(String url, ResourceLocation resourceLocation, SharedArtwork artwork, long start) {
         TextureDetails details = TextureDetails.builder(resourceLocation)
-            .withUrl(artworkUrl)
-            .withFinishHandler(texture -> callback.accept(resourceLocation))
+            .withUrl(url)
+            .withFinishHandler(texture -> artwork.complete(resourceLocation, start))
             .build();
 
         TextureRepository textureRepository = Laby.references().textureRepository();
         textureRepository.getOrRegisterTexture(details);
     }
+
+    private static class SharedArtwork {
+        final String url;
+        final ResourceLocation resourceLocation;
+        final CompletableResourceLocation completable;
+        final Icon icon;
+        // Guarded by the TrackUtil lock
+        int references;
+        volatile boolean released;
+        volatile boolean completed;
+
+        SharedArtwork(String url, ResourceLocation resourceLocation, CompletableResourceLocation completable) {
+            this.url = url;
+            this.resourceLocation = resourceLocation;
+            this.completable = completable;
+            this.icon = Icon.completable(completable);
+        }
+
+        /**
+         * Show the texture once it finished loading, called on the render thread
+         */
+        void complete(ResourceLocation location, long start) {
+            if (this.released) {
+                // Every track using it was evicted while it was still loading
+                Laby.references().textureRepository().queueTextureRelease(location);
+                return;
+            }
+            if (this.completed) {
+                return;
+            }
+
+            this.completed = true;
+            CiderMetrics.get().recordTextureLoad(System.nanoTime() - start);
+            this.completable.executeCompletableListeners(location);
+        }
+    }
 }
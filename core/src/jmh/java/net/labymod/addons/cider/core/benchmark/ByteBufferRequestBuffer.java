@@ -0,0 +1,103 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import net.labymod.api.util.io.web.request.Request;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Minimal heap backed Request.Buffer covering what packets call, so their own write/read can run outside the game
+ * Strings are VarInt length-prefixed UTF-8 like on the wire
+ */
+public class ByteBufferRequestBuffer implements Request.Buffer {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferRequestBuffer(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Drop all content and start writing from the beginning
+     */
+    public ByteBufferRequestBuffer clear() {
+        buffer.clear();
+        return this;
+    }
+
+    /**
+     * Read back everything written so far from the beginning
+     */
+    public ByteBufferRequestBuffer rewind() {
+        buffer.flip();
+        return this;
+    }
+
+    /**
+     * Read the same content again
+     */
+    public ByteBufferRequestBuffer reset() {
+        buffer.position(0);
+        return this;
+    }
+
+    public int readableBytes() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void writeUniqueId(UUID uniqueId) {
+        buffer.putLong(uniqueId.getMostSignificantBits());
+        buffer.putLong(uniqueId.getLeastSignificantBits());
+    }
+
+    @Override
+    public UUID readUniqueId() {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    @Override
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    @Override
+    public String readString() {
+        int length = readVarInt();
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    @Override
+    public void writeLong(long value) {
+        buffer.putLong(value);
+    }
+
+    @Override
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
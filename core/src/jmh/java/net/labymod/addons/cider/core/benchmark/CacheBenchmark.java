@@ -0,0 +1,59 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import net.labymod.addons.cider.core.util.Cache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache.get and Cache.push under contention: several render-like readers against one writer
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheBenchmark {
+
+    private static final int KEYS = 256;
+
+    private Cache<String> cache;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        cache = new Cache<>(TimeUnit.MINUTES.toMillis(30), value -> {
+        });
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "Track " + i + "|Artist " + (i % 32);
+            cache.push(keys[i], "icon-" + i);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public String get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void push() {
+        int i = ThreadLocalRandom.current().nextInt(KEYS);
+        cache.push(keys[i], "icon-" + i);
+    }
+
+    @Benchmark
+    public String uncontendedGet() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
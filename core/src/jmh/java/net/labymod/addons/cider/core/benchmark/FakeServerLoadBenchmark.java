@@ -0,0 +1,125 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import net.labymod.addons.cider.core.api.CiderAPI;
+import net.labymod.addons.cider.core.api.CiderHttpClient;
+import net.labymod.addons.cider.core.api.CiderListener;
+import net.labymod.addons.cider.core.api.CiderPlaybackController;
+import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.ListenerRegistry;
+import net.labymod.addons.cider.core.api.TaskScheduler;
+import net.labymod.addons.cider.core.fake.FakeCiderServer;
+import net.labymod.addons.cider.core.fake.FakeTrack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CiderAPI polling {@link FakeCiderServer} (in the test source set): how long a skip takes to reach listeners
+ * through the adaptive poll loop, and a playback command sent by the controller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FakeServerLoadBenchmark {
+
+    private static final long TRACK_CHANGE_TIMEOUT_SECONDS = 30;
+
+    @Param({"0", "50"})
+    public long latencyMs;
+
+    @Param({"0", "0.1"})
+    public double errorRate;
+
+    private FakeCiderServer server;
+    private ScheduledExecutorService executor;
+    private CiderAPI api;
+    private CiderPlaybackController controller;
+    private final BlockingQueue<CiderTrack> trackChanges = new LinkedBlockingQueue<>();
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        server = new FakeCiderServer(List.of(
+            new FakeTrack("Get Lucky", "Daft Punk", 369626),
+            new FakeTrack("Blinding Lights", "The Weeknd", 200040)
+        ))
+            .setLatency(latencyMs, latencyMs)
+            .setErrorRate(errorRate)
+            .setRequiredToken("benchmark")
+            .start(0);
+
+        CiderHttpClient http = new CiderHttpClient(server.getUrl(), "benchmark");
+        http.updateSettings(server.getUrl(), "benchmark", true);
+        controller = new CiderPlaybackController(http);
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        api = new CiderAPI(http, false, TaskScheduler.of(executor));
+        api.registerListener(new TrackChangeListener(), ListenerRegistry.DIRECT);
+        api.initialize();
+
+        // Start measuring from a connected API, not from its first probe
+        if (trackChanges.poll(TRACK_CHANGE_TIMEOUT_SECONDS, TimeUnit.SECONDS) == null) {
+            throw new IllegalStateException("CiderAPI did not connect to the fake server");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        api.stop();
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    /**
+     * Skip and wait until the poll loop reports the new track
+     */
+    @Benchmark
+    public CiderTrack trackChange() throws InterruptedException {
+        trackChanges.clear();
+        while (!controller.next()) {
+            // Injected error, send the skip again
+        }
+        CiderTrack track = trackChanges.poll(TRACK_CHANGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (track == null) {
+            throw new IllegalStateException("Skip was not picked up by polling");
+        }
+        return track;
+    }
+
+    @Benchmark
+    public boolean togglePlayPause() {
+        return controller.togglePlayPause();
+    }
+
+    private class TrackChangeListener implements CiderListener {
+
+        @Override
+        public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+            trackChanges.offer(newTrack);
+        }
+
+        @Override
+        public void onPlaybackChanged(boolean isPlaying) {
+        }
+
+        @Override
+        public void onPositionChanged(double currentTime, double duration) {
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.api.NowPlayingDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a realistic now-playing payload: streaming decoder (new and unchanged track) against the Gson tree model
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NowPlayingDecoderBenchmark {
+
+    private final NowPlayingDecoder decoder = new NowPlayingDecoder();
+    private final Gson gson = new Gson();
+
+    private byte[] payload;
+    private String payloadString;
+    private CiderTrack previous;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = NowPlayingDecoderBenchmark.class.getResourceAsStream("/now-playing.json")) {
+            payload = in.readAllBytes();
+        }
+        payloadString = new String(payload, StandardCharsets.UTF_8);
+        previous = decoder.decode(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public CiderTrack streamingNewTrack() throws IOException {
+        return decoder.decode(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public CiderTrack streamingSameTrack() throws IOException {
+        return decoder.decode(new ByteArrayInputStream(payload), previous);
+    }
+
+    @Benchmark
+    public CiderTrack gsonTree() {
+        JsonObject json = gson.fromJson(payloadString, JsonObject.class);
+        return decoder.decode(json.getAsJsonObject("info"));
+    }
+}
@@ -0,0 +1,55 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import net.labymod.addons.cider.core.api.CiderTrack;
+import net.labymod.addons.cider.core.util.Hashing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the artwork resource path: the former regex sanitising of name|artist, the precomputed track id hash,
+ * and hashing the normalised artwork URL as TrackUtil does now (once per artwork rather than per track)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResourcePathBenchmark {
+
+    @Param({
+        "Get Lucky (feat. Pharrell Williams & Nile Rodgers)|Daft Punk",
+        "blinding-lights|the-weeknd"
+    })
+    public String trackId;
+
+    private static final String ARTWORK_URL = "https://is1-ssl.mzstatic.com/image/thumb/Music115/v4/e8/43/5f/e8435ffa-b6b9-b171-40ab-4ff3959ab661/886443919266.jpg/128x128bb.jpg";
+
+    private CiderTrack track;
+
+    @Setup
+    public void setup() {
+        int separator = trackId.indexOf('|');
+        track = new CiderTrack(trackId.substring(0, separator), trackId.substring(separator + 1), "", null, 200.0, 0.0, "Unknown");
+    }
+
+    @Benchmark
+    public String regexSanitize() {
+        return "track/" + trackId.toLowerCase(Locale.ENGLISH).replaceAll("[^a-z0-9-]", "_");
+    }
+
+    @Benchmark
+    public String idHash() {
+        return "track/" + Long.toHexString(track.getIdHash());
+    }
+
+    @Benchmark
+    public String urlHash() {
+        return "artwork/" + Long.toHexString(Hashing.fnv1a64(ARTWORK_URL));
+    }
+}
@@ -0,0 +1,27 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import net.labymod.addons.cider.core.util.TimeFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * m:ss formatting done by CiderWidget.tick whenever the displayed second changes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimeFormatBenchmark {
+
+    private int seconds;
+
+    @Benchmark
+    public String minutesSeconds() {
+        seconds = (seconds + 1) % 3600;
+        return TimeFormat.minutesSeconds(seconds);
+    }
+}
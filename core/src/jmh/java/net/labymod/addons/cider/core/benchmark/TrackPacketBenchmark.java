@@ -0,0 +1,56 @@
+package net.labymod.addons.cider.core.benchmark;
+
+import net.labymod.addons.cider.core.networking.CiderTrackPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a CiderTrackPacket through its own write/read
+ * The game's Request.Buffer is replaced by {@link ByteBufferRequestBuffer}, so the numbers cover the packet's
+ * field handling and string encoding but not the game's buffer implementation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrackPacketBenchmark {
+
+    private CiderTrackPacket packet;
+    private ByteBufferRequestBuffer buffer;
+    private ByteBufferRequestBuffer encoded;
+
+    @Setup
+    public void setup() {
+        packet = new CiderTrackPacket(
+            UUID.randomUUID(),
+            "Steve",
+            "Get Lucky (feat. Pharrell Williams & Nile Rodgers)",
+            "Daft Punk",
+            "Random Access Memories"
+        );
+        buffer = new ByteBufferRequestBuffer(1024);
+        encoded = new ByteBufferRequestBuffer(1024);
+        packet.write(encoded);
+        encoded.rewind();
+    }
+
+    @Benchmark
+    public ByteBufferRequestBuffer write() {
+        buffer.clear();
+        packet.write(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public CiderTrackPacket read() {
+        CiderTrackPacket decoded = new CiderTrackPacket();
+        decoded.read(encoded.reset());
+        return decoded;
+    }
+}
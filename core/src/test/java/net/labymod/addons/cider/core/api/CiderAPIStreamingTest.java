@@ -0,0 +1,141 @@
+package net.labymod.addons.cider.core.api;
+
+import net.labymod.addons.cider.core.fake.FakeSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a streaming CiderAPI against {@link FakeSocketServer}, polling first and then pushed events
+ */
+class CiderAPIStreamingTest {
+
+    private static final String NOW_PLAYING = "{\"status\":\"ok\",\"info\":{\"albumName\":\"Random Access Memories\","
+        + "\"artistName\":\"Daft Punk\",\"durationInMillis\":369626,\"name\":\"Get Lucky\","
+        + "\"playParams\":{\"id\":\"617154366\",\"kind\":\"song\"},\"currentPlaybackTime\":12.0}}";
+    private static final String IS_PLAYING = "{\"status\":\"ok\",\"is_playing\":true}";
+
+    private FakeSocketServer server;
+    private ScheduledExecutorService executor;
+    private CiderAPI api;
+    private final BlockingQueue<CiderTrack> trackChanges = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Boolean> playbackChanges = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSocketServer()
+            .respond(CiderAPI.NOW_PLAYING_PATH, NOW_PLAYING)
+            .respond(CiderAPI.IS_PLAYING_PATH, IS_PLAYING)
+            .start();
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        api = new CiderAPI(new CiderHttpClient(server.getUrl(), null), true, TaskScheduler.of(executor));
+        api.registerListener(new QueueListener(), ListenerRegistry.DIRECT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.stop();
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    void mapsPushedEventsToListenerCallbacks() throws IOException, InterruptedException {
+        startStreaming();
+        playbackChanges.clear();
+
+        server.replay(CiderEventStreamTest.RECORDING);
+
+        CiderTrack track = trackChanges.poll(5, TimeUnit.SECONDS);
+        assertNotNull(track, "pushed track change not published");
+        assertEquals("Blinding Lights", track.getName());
+        assertEquals("1499378615", track.getCatalogId());
+        assertEquals(Boolean.FALSE, playbackChanges.poll(5, TimeUnit.SECONDS));
+
+        assertTrue(await(() -> api.getSnapshot().getTrack().getCurrentTime() == 42.5), "pushed position not applied");
+        assertFalse(api.getSnapshot().isPlaying());
+        assertEquals("Blinding Lights", api.getSnapshot().getTrack().getName());
+    }
+
+    @Test
+    void stopsPollingWhileStreaming() throws InterruptedException {
+        startStreaming();
+
+        long requests = server.getRequestCount(CiderAPI.NOW_PLAYING_PATH);
+        Thread.sleep(1500);
+
+        assertEquals(requests, server.getRequestCount(CiderAPI.NOW_PLAYING_PATH));
+        assertTrue(api.isStreaming());
+    }
+
+    @Test
+    void fallsBackToPollingWhenStreamCloses() throws IOException, InterruptedException {
+        startStreaming();
+        long requests = server.getRequestCount(CiderAPI.NOW_PLAYING_PATH);
+
+        server.close();
+
+        assertTrue(await(() -> server.getRequestCount(CiderAPI.NOW_PLAYING_PATH) > requests), "polling did not resume");
+        assertFalse(api.isStreaming());
+        assertEquals(ConnectionState.CONNECTED, api.getConnectionState());
+    }
+
+    /**
+     * Connect, wait for the socket and for the seed poll the stream triggers, so pushed frames are not raced by it
+     */
+    private void startStreaming() throws InterruptedException {
+        api.initialize();
+        CiderTrack track = trackChanges.poll(5, TimeUnit.SECONDS);
+        assertNotNull(track, "no polled track published");
+        assertEquals("Get Lucky", track.getName());
+
+        assertTrue(await(api::isStreaming), "stream not opened");
+        assertTrue(await(() -> System.nanoTime() - server.getLastRequestNanos() > TimeUnit.MILLISECONDS.toNanos(300)),
+            "polling did not stop");
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private class QueueListener implements CiderListener {
+
+        @Override
+        public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+            trackChanges.offer(newTrack);
+        }
+
+        @Override
+        public void onPlaybackChanged(boolean isPlaying) {
+            playbackChanges.offer(isPlaying);
+        }
+
+        @Override
+        public void onPositionChanged(double currentTime, double duration) {
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+    }
+}
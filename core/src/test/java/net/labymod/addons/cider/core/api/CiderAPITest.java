@@ -0,0 +1,152 @@
+package net.labymod.addons.cider.core.api;
+
+import net.labymod.addons.cider.core.fake.FakeCiderServer;
+import net.labymod.addons.cider.core.fake.FakeTrack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CiderAPITest {
+
+    private static final String TOKEN = "test";
+    private static final FakeTrack FIRST = new FakeTrack("Get Lucky", "Daft Punk", "Random Access Memories", null, 369626, "Electronic");
+    private static final FakeTrack SECOND = new FakeTrack("Blinding Lights", "The Weeknd", "After Hours", null, 200040, "R&B/Soul");
+
+    private FakeCiderServer server;
+    private ScheduledExecutorService executor;
+    private CiderHttpClient http;
+    private CiderAPI api;
+    private final BlockingQueue<CiderTrack> trackChanges = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeCiderServer(List.of(FIRST, SECOND))
+            .setRequiredToken(TOKEN)
+            .start(0);
+        http = new CiderHttpClient(server.getUrl(), TOKEN);
+        http.updateSettings(server.getUrl(), TOKEN, true);
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        api = new CiderAPI(http, false, TaskScheduler.of(executor));
+        api.registerListener(new TrackChangeListener(), ListenerRegistry.DIRECT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.stop();
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    void publishesTheNowPlayingTrack() throws InterruptedException {
+        api.initialize();
+
+        CiderTrack track = trackChanges.poll(5, TimeUnit.SECONDS);
+        assertNotNull(track, "no track published");
+        assertEquals(FIRST.getName(), track.getName());
+        assertEquals(FIRST.getArtistName(), track.getArtistName());
+        assertEquals(FIRST.getCatalogId(), track.getCatalogId());
+        assertEquals(ConnectionState.CONNECTED, api.getConnectionState());
+        assertTrue(api.getSnapshot().isPlaying());
+    }
+
+    @Test
+    void followsSkipsThroughPolling() throws InterruptedException {
+        api.initialize();
+        assertNotNull(trackChanges.poll(5, TimeUnit.SECONDS), "no track published");
+
+        assertTrue(new CiderPlaybackController(http).next());
+
+        CiderTrack track = trackChanges.poll(5, TimeUnit.SECONDS);
+        assertNotNull(track, "skip not picked up");
+        assertEquals(SECOND.getCatalogId(), track.getCatalogId());
+    }
+
+    @Test
+    void opensCircuitWhenCiderGoesAway() throws InterruptedException {
+        api.initialize();
+        assertNotNull(trackChanges.poll(5, TimeUnit.SECONDS), "no track published");
+
+        server.stop();
+
+        assertTrue(await(() -> api.getConnectionState() == ConnectionState.OPEN_CIRCUIT), "circuit did not open");
+        assertFalse(api.getSnapshot().hasTrack());
+    }
+
+    @Test
+    void waitsForTheProbeWithoutBlockingTheScheduler() throws Exception {
+        server.setLatency("active", 2000, 2000);
+        api.initialize();
+
+        assertTrue(await(() -> server.getRequestCounts().getOrDefault("active", 0L) > 0), "no probe sent");
+        executor.submit(() -> { }).get(100, TimeUnit.MILLISECONDS);
+        Thread.sleep(1200);
+
+        // The probe timed out, so the poll never got to now-playing
+        assertEquals(0L, nowPlayingRequests());
+        assertEquals(ConnectionState.PROBING, api.getConnectionState());
+        assertFalse(api.getSnapshot().hasTrack());
+    }
+
+    @Test
+    void stopEndsPolling() throws InterruptedException {
+        api.initialize();
+        assertNotNull(trackChanges.poll(5, TimeUnit.SECONDS), "no track published");
+
+        api.stop();
+        long requests = nowPlayingRequests();
+        Thread.sleep(1500);
+
+        assertEquals(requests, nowPlayingRequests());
+        assertEquals(ConnectionState.DISCONNECTED, api.getConnectionState());
+    }
+
+    private long nowPlayingRequests() {
+        return server.getRequestCounts().getOrDefault("now-playing", 0L);
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private class TrackChangeListener implements CiderListener {
+
+        @Override
+        public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+            trackChanges.offer(newTrack);
+        }
+
+        @Override
+        public void onPlaybackChanged(boolean isPlaying) {
+        }
+
+        @Override
+        public void onPositionChanged(double currentTime, double duration) {
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+    }
+}
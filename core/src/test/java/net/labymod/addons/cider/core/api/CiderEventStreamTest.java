@@ -0,0 +1,159 @@
+package net.labymod.addons.cider.core.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import net.labymod.addons.cider.core.fake.FakeSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CiderEventStreamTest {
+
+    static final String RECORDING = "/cider/playback-stream.txt";
+
+    private FakeSocketServer server;
+    private ScheduledExecutorService executor;
+    private CiderEventStream stream;
+    private final CountDownLatch opened = new CountDownLatch(1);
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final BlockingQueue<String> types = new LinkedBlockingQueue<>();
+    private final BlockingQueue<JsonObject> events = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSocketServer().start();
+        executor = Executors.newSingleThreadScheduledExecutor();
+        stream = new CiderEventStream(new CiderHttpClient(server.getUrl(), null), new Gson(), new RecordingHandler(),
+            TaskScheduler.of(executor));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    void joinsNamespaceAfterEngineOpen() throws InterruptedException {
+        stream.connect();
+
+        assertEquals("40", server.getReceived().poll(5, TimeUnit.SECONDS));
+        assertTrue(opened.await(5, TimeUnit.SECONDS), "namespace not joined");
+        assertTrue(stream.isConnected());
+    }
+
+    @Test
+    void answersPings() throws IOException, InterruptedException {
+        open();
+
+        server.send("2");
+
+        assertEquals("3", server.getReceived().poll(5, TimeUnit.SECONDS));
+        assertTrue(stream.isConnected());
+    }
+
+    @Test
+    void staysOpenWhilePinged() throws IOException, InterruptedException {
+        server.setPing(200, 100);
+        open();
+
+        for (int i = 0; i < 10; i++) {
+            server.send("2");
+            assertEquals("3", server.getReceived().poll(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+        }
+
+        assertEquals(1, closed.getCount(), "closed although pinged");
+        assertTrue(stream.isConnected());
+    }
+
+    @Test
+    void closesWhenPingsStop() throws InterruptedException {
+        server.setPing(100, 100);
+        open();
+
+        // A dropped socket is not always reported by the client, the missing pings are
+        assertTrue(closed.await(5, TimeUnit.SECONDS), "ping timeout not reported");
+        assertFalse(stream.isConnected());
+    }
+
+    @Test
+    void deliversRecordedPlaybackEvents() throws IOException, InterruptedException {
+        open();
+
+        server.replay(RECORDING);
+
+        assertEquals("playbackStatus.nowPlayingItemDidChange", types.poll(5, TimeUnit.SECONDS));
+        assertEquals("playbackStatus.playbackTimeDidChange", types.poll(5, TimeUnit.SECONDS));
+        assertEquals("playbackStatus.playbackStateDidChange", types.poll(5, TimeUnit.SECONDS));
+        assertEquals("playbackStatus.playbackTimeDidChange", types.poll(5, TimeUnit.SECONDS));
+        assertNull(types.poll(200, TimeUnit.MILLISECONDS), "non-playback event delivered");
+
+        assertEquals("Blinding Lights", events.poll().get("name").getAsString());
+        events.poll();
+        events.poll();
+        assertEquals(42.5, events.poll().get("currentPlaybackTime").getAsDouble());
+    }
+
+    @Test
+    void skipsMalformedFrames() throws IOException, InterruptedException {
+        open();
+        List<String> frames = FakeSocketServer.loadFrames(RECORDING);
+
+        server.send("42[\"API:Playback\",{\"type\":");
+        server.send(frames.get(0));
+
+        assertEquals("playbackStatus.nowPlayingItemDidChange", types.poll(5, TimeUnit.SECONDS));
+        assertTrue(stream.isConnected());
+    }
+
+    @Test
+    void reportsCloseWhenServerCloses() throws IOException, InterruptedException {
+        open();
+
+        server.close();
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS), "close not reported");
+        assertFalse(stream.isConnected());
+    }
+
+    private void open() throws InterruptedException {
+        stream.connect();
+        assertNotNull(server.getReceived().poll(5, TimeUnit.SECONDS), "no namespace connect");
+        assertTrue(opened.await(5, TimeUnit.SECONDS), "namespace not joined");
+    }
+
+    private class RecordingHandler implements CiderEventStream.Handler {
+
+        @Override
+        public void onOpen() {
+            opened.countDown();
+        }
+
+        @Override
+        public void onPlaybackEvent(String type, JsonObject data) {
+            events.offer(data);
+            types.offer(type);
+        }
+
+        @Override
+        public void onClose() {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package net.labymod.addons.cider.core.api;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListenerRegistryTest {
+
+    private static final int EVENTS = 500;
+
+    @Test
+    void blockedListenerDelaysNeitherDispatchNorOtherListeners() throws InterruptedException {
+        ListenerRegistry registry = new ListenerRegistry();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        PositionListener blocked = new PositionListener() {
+            @Override
+            public void onPositionChanged(double currentTime, double duration) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onPositionChanged(currentTime, duration);
+            }
+        };
+        PositionListener other = new PositionListener();
+        registry.register(blocked, ListenerRegistry.ASYNC);
+        registry.register(other, ListenerRegistry.ASYNC);
+
+        long start = System.nanoTime();
+        dispatchPositions(registry);
+        long dispatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        try {
+            assertTrue(entered.await(5, TimeUnit.SECONDS), "blocked listener never ran");
+            assertTrue(dispatchMillis < 1000, "dispatch waited for the blocked listener (" + dispatchMillis + " ms)");
+
+            // The other listener gets everything while the first one is still stuck on its first event
+            assertTrue(other.await(EVENTS), "other listener was held up by the blocked one");
+            assertEquals(0, blocked.size());
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(blocked.await(EVENTS), "blocked listener did not catch up after release");
+        assertEquals(expectedPositions(), blocked.positions());
+        assertEquals(expectedPositions(), other.positions());
+    }
+
+    @Test
+    void keepsOrderPerListener() throws InterruptedException {
+        ListenerRegistry registry = new ListenerRegistry();
+        List<PositionListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PositionListener listener = new PositionListener();
+            listeners.add(listener);
+            registry.register(listener, ListenerRegistry.ASYNC);
+        }
+
+        dispatchPositions(registry);
+
+        for (PositionListener listener : listeners) {
+            assertTrue(listener.await(EVENTS), "listener missed events");
+            assertEquals(expectedPositions(), listener.positions());
+        }
+    }
+
+    @Test
+    void failingListenerKeepsReceivingEvents() throws InterruptedException {
+        ListenerRegistry registry = new ListenerRegistry();
+        PositionListener failing = new PositionListener() {
+            @Override
+            public void onPositionChanged(double currentTime, double duration) {
+                super.onPositionChanged(currentTime, duration);
+                if (currentTime == 0) {
+                    throw new IllegalStateException("listener failure");
+                }
+            }
+        };
+        PositionListener other = new PositionListener();
+        registry.register(failing, ListenerRegistry.ASYNC);
+        registry.register(other, ListenerRegistry.ASYNC);
+
+        dispatchPositions(registry);
+
+        assertTrue(failing.await(EVENTS), "failing listener stopped receiving events");
+        assertTrue(other.await(EVENTS), "other listener missed events");
+        assertEquals(expectedPositions(), other.positions());
+    }
+
+    @Test
+    void unregisteredListenerReceivesNoNewEvents() throws InterruptedException {
+        ListenerRegistry registry = new ListenerRegistry();
+        PositionListener listener = new PositionListener();
+        registry.register(listener, ListenerRegistry.DIRECT);
+
+        registry.dispatch(l -> l.onPositionChanged(1, EVENTS));
+        registry.unregister(listener);
+        registry.dispatch(l -> l.onPositionChanged(2, EVENTS));
+
+        assertEquals(Collections.singletonList(1.0), listener.positions());
+    }
+
+    private static void dispatchPositions(ListenerRegistry registry) {
+        for (int i = 0; i < EVENTS; i++) {
+            double position = i;
+            registry.dispatch(listener -> listener.onPositionChanged(position, EVENTS));
+        }
+    }
+
+    private static List<Double> expectedPositions() {
+        List<Double> positions = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            positions.add((double) i);
+        }
+        return positions;
+    }
+
+    /**
+     * Records position callbacks in the order they arrive
+     */
+    private static class PositionListener implements CiderListener {
+        private final List<Double> positions = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+        }
+
+        @Override
+        public void onPlaybackChanged(boolean isPlaying) {
+        }
+
+        @Override
+        public void onPositionChanged(double currentTime, double duration) {
+            positions.add(currentTime);
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+
+        int size() {
+            return positions.size();
+        }
+
+        List<Double> positions() {
+            synchronized (positions) {
+                return new ArrayList<>(positions);
+            }
+        }
+
+        boolean await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (positions.size() < count) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                Thread.sleep(5);
+            }
+            return true;
+        }
+    }
+}
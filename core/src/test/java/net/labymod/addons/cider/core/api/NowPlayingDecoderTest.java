@@ -0,0 +1,134 @@
+package net.labymod.addons.cider.core.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NowPlayingDecoderTest {
+
+    private static final String NAME = "Beyonc\u00e9 \uD83D\uDC1D \"Live\"";
+    private static final String ARTWORK = "https://is1-ssl.mzstatic.com/image/thumb/Music/{w}x{h}bb.jpg";
+
+    private NowPlayingDecoder decoder;
+    private CiderTrack previous;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        decoder = new NowPlayingDecoder();
+        previous = decoder.decode(in(body(quote(NAME), "\"617154366\"", "127.482917")));
+        assertNotNull(previous);
+    }
+
+    @Test
+    void reusesUnchangedTrack() throws IOException {
+        CiderTrack track = decoder.decode(in(body(quote(NAME), "\"617154366\"", "130.25")), previous);
+
+        assertSame(previous.getName(), track.getName());
+        assertSame(previous.getId(), track.getId());
+        assertEquals(130.25, track.getCurrentTime());
+    }
+
+    @Test
+    void comparesDecodedStringsNotBytes() throws IOException {
+        // Same name with every non-ASCII character escaped
+        String escaped = "\"Beyonc\\u00e9 \\ud83d\\udc1d \\\"Live\\\"\"";
+        CiderTrack track = decoder.decode(in(body(escaped, "\"617154366\"", "1")), previous);
+
+        assertSame(previous.getName(), track.getName());
+    }
+
+    @Test
+    void acceptsNumericCatalogId() throws IOException {
+        CiderTrack track = decoder.decode(in(body(quote(NAME), "617154366", "1")), previous);
+
+        assertSame(previous.getName(), track.getName());
+    }
+
+    @Test
+    void decodesChangedTrack() throws IOException {
+        assertChanged(body(quote(NAME + "!"), "\"617154366\"", "1"));
+        assertChanged(body(quote(NAME.substring(0, NAME.length() - 1)), "\"617154366\"", "1"));
+        assertChanged(body(quote(NAME), "\"617154367\"", "1"));
+        assertChanged(body(quote(NAME), "null", "1"));
+        assertChanged(body(quote(NAME), "\"617154366\"", "1").replace(ARTWORK, ARTWORK + "?v=2"));
+        assertChanged(body(quote(NAME), "\"617154366\"", "1").replace("369626", "369627"));
+        assertChanged(body(quote(NAME), "\"617154366\"", "1").replace("\"albumName\":\"Album\",", ""));
+    }
+
+    @Test
+    void parsesExponentPositions() throws IOException {
+        CiderTrack track = decoder.decode(in(body(quote(NAME), "\"617154366\"", "1.5e2")), previous);
+
+        assertEquals(150.0, track.getCurrentTime());
+        assertEquals(previous.getId(), track.getId());
+    }
+
+    @Test
+    void keepsReturningNullWithoutTrack() throws IOException {
+        assertNull(decoder.decode(in("{\"status\":\"ok\"}"), previous));
+        assertNull(decoder.decode(in("{\"status\":\"ok\",\"info\":{\"name\":null}}"), previous));
+    }
+
+    @Test
+    void decodesLargeBodies() throws IOException {
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            padding.append('x');
+        }
+        String body = body(quote(NAME), "\"617154366\"", "2").replace("\"status\":\"ok\"", "\"status\":\"" + padding + "\"");
+
+        CiderTrack track = decoder.decode(in(body), previous);
+        assertSame(previous.getName(), track.getName());
+        assertEquals(2.0, track.getCurrentTime());
+    }
+
+    private void assertChanged(String body) throws IOException {
+        CiderTrack track = decoder.decode(in(body), previous);
+        CiderTrack expected = new NowPlayingDecoder().decode(in(body));
+
+        assertNotNull(track);
+        assertNotSame(previous.getName(), track.getName());
+        assertEquals(expected.getName(), track.getName());
+        assertEquals(expected.getCatalogId(), track.getCatalogId());
+        assertEquals(expected.getArtworkUrl(), track.getArtworkUrl());
+        assertEquals(expected.getAlbumName(), track.getAlbumName());
+        assertEquals(expected.getDuration(), track.getDuration());
+        assertFalse(previous.hasSameIdentity(track.getCatalogId(), track.getName(), track.getArtistName(),
+            track.getAlbumName(), track.getArtworkUrl(), track.getDuration()));
+        assertTrue(track.getCurrentTime() >= 0);
+    }
+
+    private static String body(String name, String catalogId, String position) {
+        return "{\"status\":\"ok\",\"info\":{"
+            + "\"albumName\":\"Album\","
+            + "\"artistName\":\"Artist\","
+            + "\"artwork\":{\"width\":3000,\"url\":\"" + ARTWORK + "\",\"bgColor\":\"000000\"},"
+            + "\"durationInMillis\":369626,"
+            + "\"genreNames\":[\"Pop\",\"Music\"],"
+            + "\"name\":" + name + ","
+            + "\"playParams\":{\"id\":" + catalogId + ",\"kind\":\"song\"},"
+            + "\"previews\":[{\"url\":\"https://example.com/a.m4a\"}],"
+            + "\"editorialNotes\":{\"short\":\"Escaped \\\"quotes\\\" and \\\\ backslashes\"},"
+            + "\"attributes\":{\"status\":true},"
+            + "\"currentPlaybackTime\":" + position + ","
+            + "\"inLibrary\":false,\"shuffleMode\":0}}";
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static ByteArrayInputStream in(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
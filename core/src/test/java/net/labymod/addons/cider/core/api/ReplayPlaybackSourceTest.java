@@ -0,0 +1,101 @@
+package net.labymod.addons.cider.core.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayPlaybackSourceTest {
+
+    private Path file;
+    private ReplayPlaybackSource source;
+    private final BlockingQueue<String> trackChanges = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws IOException, InterruptedException {
+        file = Files.createTempFile("cider-replay", ".cidr");
+        try (CiderRecorder recorder = new CiderRecorder(file)) {
+            recorder.record(CiderAPI.NOW_PLAYING_PATH, nowPlaying("Get Lucky", "617154366", 1.0));
+            recorder.record(CiderAPI.IS_PLAYING_PATH, "{\"status\":\"ok\",\"is_playing\":true}");
+            Thread.sleep(600);
+            recorder.record(CiderAPI.NOW_PLAYING_PATH, nowPlaying("Blinding Lights", "1499378615", 0.5));
+            recorder.record(CiderAPI.IS_PLAYING_PATH, "{\"status\":\"ok\",\"is_playing\":true}");
+            Thread.sleep(600);
+            recorder.record(CiderAPI.NOW_PLAYING_PATH, nowPlaying("Blinding Lights", "1499378615", 1.1));
+        }
+
+        source = new ReplayPlaybackSource(file, 1);
+        source.registerListener(new QueueListener(), ListenerRegistry.DIRECT);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        source.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void replaysRecordedTracks() throws InterruptedException {
+        source.initialize();
+
+        assertEquals("Get Lucky", trackChanges.poll(5, TimeUnit.SECONDS));
+        assertEquals("Blinding Lights", trackChanges.poll(5, TimeUnit.SECONDS));
+        assertTrue(source.isInitialized());
+    }
+
+    @Test
+    void keepsReplayingAfterRestarts() throws InterruptedException {
+        source.initialize();
+        assertEquals("Get Lucky", trackChanges.poll(5, TimeUnit.SECONDS));
+
+        // The stopped replays are still parked waiting for their next record when the new one begins
+        for (int i = 0; i < 2; i++) {
+            source.stop();
+            source.initialize();
+            assertEquals("Get Lucky", trackChanges.poll(5, TimeUnit.SECONDS), "no track after restart " + (i + 1));
+        }
+
+        String next = trackChanges.poll(5, TimeUnit.SECONDS);
+        assertNotNull(next, "restarted replay was ended by a stopped one");
+        assertEquals("Blinding Lights", next);
+        assertTrue(source.isInitialized());
+        assertEquals(ConnectionState.CONNECTED, source.getConnectionState());
+        assertNull(trackChanges.poll(300, TimeUnit.MILLISECONDS), "stale record from a stopped replay");
+    }
+
+    private static String nowPlaying(String name, String id, double position) {
+        return "{\"status\":\"ok\",\"info\":{\"albumName\":\"Album\",\"artistName\":\"Artist\",\"durationInMillis\":200000,"
+            + "\"name\":\"" + name + "\",\"playParams\":{\"id\":\"" + id + "\",\"kind\":\"song\"},"
+            + "\"currentPlaybackTime\":" + position + "}}";
+    }
+
+    private class QueueListener implements CiderListener {
+
+        @Override
+        public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+            trackChanges.offer(newTrack.getName());
+        }
+
+        @Override
+        public void onPlaybackChanged(boolean isPlaying) {
+        }
+
+        @Override
+        public void onPositionChanged(double currentTime, double duration) {
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+    }
+}
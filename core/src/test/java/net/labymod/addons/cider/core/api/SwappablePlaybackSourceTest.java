@@ -0,0 +1,79 @@
+package net.labymod.addons.cider.core.api;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SwappablePlaybackSourceTest {
+
+    private static final CiderTrack FIRST = new CiderTrack("Get Lucky", "Daft Punk", "Random Access Memories", null, 369.6, 1.0, "Electronic");
+    private static final CiderTrack SECOND = new CiderTrack("Blinding Lights", "The Weeknd", "After Hours", null, 200.0, 1.0, "R&B/Soul");
+
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    void movesListenersToTheNewSource() {
+        InMemoryPlaybackSource first = new InMemoryPlaybackSource();
+        InMemoryPlaybackSource second = new InMemoryPlaybackSource();
+        SwappablePlaybackSource source = new SwappablePlaybackSource(first);
+        source.registerListener(new RecordingListener(), ListenerRegistry.DIRECT);
+
+        source.initialize();
+        first.setTrack(FIRST, true);
+
+        assertSame(first, source.swap(second));
+        assertFalse(first.isInitialized());
+        assertFalse(source.isInitialized());
+
+        source.initialize();
+        first.setTrack(FIRST, true);
+        second.setTrack(SECOND, true);
+
+        assertEquals(List.of("track Get Lucky", "disconnect", "track Blinding Lights"), events);
+        assertSame(second, source.current());
+        assertTrue(source.isInitialized());
+        assertEquals(SECOND.getName(), source.getCurrentTrack().getName());
+    }
+
+    @Test
+    void unregisteredListenersStayOff() {
+        InMemoryPlaybackSource first = new InMemoryPlaybackSource();
+        InMemoryPlaybackSource second = new InMemoryPlaybackSource();
+        SwappablePlaybackSource source = new SwappablePlaybackSource(first);
+        RecordingListener listener = new RecordingListener();
+        source.registerListener(listener, ListenerRegistry.DIRECT);
+        source.unregisterListener(listener);
+
+        source.swap(second);
+        source.initialize();
+        second.setTrack(SECOND, true);
+
+        assertTrue(events.isEmpty());
+    }
+
+    private class RecordingListener implements CiderListener {
+
+        @Override
+        public void onTrackChanged(CiderTrack oldTrack, CiderTrack newTrack) {
+            events.add("track " + newTrack.getName());
+        }
+
+        @Override
+        public void onPlaybackChanged(boolean isPlaying) {
+        }
+
+        @Override
+        public void onPositionChanged(double currentTime, double duration) {
+        }
+
+        @Override
+        public void onDisconnect() {
+            events.add("disconnect");
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package net.labymod.addons.cider.core.fake;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the Cider RPC server, built on the JDK's HTTP server
+ * Serves active, is-playing, now-playing and queue plus the control endpoints used by CiderPlaybackController.
+ * Latency (per endpoint), error rate and token enforcement can be changed while it runs, so load tests can
+ * reproduce slow or flaky endpoints without a Cider instance. Playback follows a scripted track list in real time
+ */
+public class FakeCiderServer {
+
+    private static final String PREFIX = "/api/v1/playback/";
+
+    private final Gson gson = new Gson();
+    private final List<FakeTrack> script;
+    private final Map<String, long[]> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+
+    private volatile long[] defaultLatency = {0L, 0L};
+    private volatile double errorRate;
+    private volatile String requiredToken;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Playback state, guarded by this
+    private int trackIndex;
+    private boolean playing = true;
+    private double positionSeconds;
+    private long positionUpdatedNanos;
+    private double volume = 1.0;
+
+    public FakeCiderServer(List<FakeTrack> script) {
+        if (script.isEmpty()) {
+            throw new IllegalArgumentException("Script needs at least one track");
+        }
+        this.script = new ArrayList<>(script);
+    }
+
+    /**
+     * Start listening on the loopback interface
+     *
+     * @param port port to bind, 0 picks a free one
+     */
+    public synchronized FakeCiderServer start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Fake Cider");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.start();
+        positionUpdatedNanos = System.nanoTime();
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Base URL to configure CiderHttpClient with
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Delay every response by a random time in [minMs, maxMs]
+     */
+    public FakeCiderServer setLatency(long minMs, long maxMs) {
+        this.defaultLatency = new long[]{minMs, maxMs};
+        return this;
+    }
+
+    /**
+     * Delay responses of one endpoint (e.g. "now-playing") by a random time in [minMs, maxMs]
+     */
+    public FakeCiderServer setLatency(String endpoint, long minMs, long maxMs) {
+        latencies.put(endpoint, new long[]{minMs, maxMs});
+        return this;
+    }
+
+    /**
+     * Fraction of requests (0 to 1) answered with a 500
+     */
+    public FakeCiderServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Reject requests without this apptoken header with a 403, null accepts everything
+     */
+    public FakeCiderServer setRequiredToken(String token) {
+        this.requiredToken = token;
+        return this;
+    }
+
+    /**
+     * Number of requests received per endpoint
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        requests.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            URI uri = exchange.getRequestURI();
+            String endpoint = uri.getPath().substring(PREFIX.length());
+            requests.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+
+            delay(latencies.getOrDefault(endpoint, defaultLatency));
+
+            String token = requiredToken;
+            if (token != null && !token.equals(exchange.getRequestHeaders().getFirst("apptoken"))) {
+                respond(exchange, 403, error("Unauthorized"));
+                return;
+            }
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                respond(exchange, 500, error("Injected failure"));
+                return;
+            }
+
+            boolean post = "POST".equalsIgnoreCase(exchange.getRequestMethod());
+            JsonObject response = post ? control(endpoint, uri.getQuery()) : query(endpoint);
+            if (response == null) {
+                respond(exchange, 404, error("Not found"));
+            } else {
+                respond(exchange, 200, response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized JsonObject query(String endpoint) {
+        advance();
+        JsonObject json = ok();
+        switch (endpoint) {
+            case "active":
+                return json;
+            case "is-playing":
+                json.addProperty("is_playing", playing);
+                return json;
+            case "now-playing":
+                json.add("info", info(script.get(trackIndex)));
+                return json;
+            case "queue":
+                // Current track first, then the rest of the script in play order
+                JsonArray queue = new JsonArray();
+                for (int i = 0; i < script.size(); i++) {
+                    JsonObject item = new JsonObject();
+                    item.add("attributes", info(script.get((trackIndex + i) % script.size())));
+                    queue.add(item);
+                }
+                json.add("queue", queue);
+                return json;
+            default:
+                return null;
+        }
+    }
+
+    private synchronized JsonObject control(String endpoint, String query) {
+        advance();
+        switch (endpoint) {
+            case "play":
+                playing = true;
+                break;
+            case "pause":
+                playing = false;
+                break;
+            case "playpause":
+                playing = !playing;
+                break;
+            case "next":
+                skip(1);
+                break;
+            case "previous":
+                skip(-1);
+                break;
+            case "seek":
+                double duration = script.get(trackIndex).getDurationInMillis() / 1000.0;
+                positionSeconds = Math.max(0, Math.min(duration, parameter(query, "position", positionSeconds)));
+                break;
+            case "volume":
+                volume = Math.max(0, Math.min(1, parameter(query, "level", volume)));
+                break;
+            default:
+                return null;
+        }
+        return ok();
+    }
+
+    /**
+     * Move the position forward in real time and roll over to the next scripted track
+     */
+    private void advance() {
+        long now = System.nanoTime();
+        if (playing) {
+            positionSeconds += (now - positionUpdatedNanos) / 1_000_000_000.0;
+            double duration;
+            while (positionSeconds >= (duration = script.get(trackIndex).getDurationInMillis() / 1000.0)) {
+                positionSeconds -= duration;
+                trackIndex = (trackIndex + 1) % script.size();
+            }
+        }
+        positionUpdatedNanos = now;
+    }
+
+    private void skip(int direction) {
+        trackIndex = Math.floorMod(trackIndex + direction, script.size());
+        positionSeconds = 0;
+    }
+
+    private JsonObject info(FakeTrack track) {
+        JsonObject info = new JsonObject();
+        info.addProperty("name", track.getName());
+        info.addProperty("artistName", track.getArtistName());
+        info.addProperty("albumName", track.getAlbumName());
+        info.addProperty("durationInMillis", track.getDurationInMillis());
+        info.addProperty("currentPlaybackTime", positionSeconds);
+        info.addProperty("remainingTime", track.getDurationInMillis() / 1000.0 - positionSeconds);
+        if (track.getArtworkUrl() != null) {
+            JsonObject artwork = new JsonObject();
+            artwork.addProperty("url", track.getArtworkUrl());
+            artwork.addProperty("width", 3000);
+            artwork.addProperty("height", 3000);
+            info.add("artwork", artwork);
+        }
+        JsonArray genres = new JsonArray();
+        genres.add(track.getGenre());
+        info.add("genreNames", genres);
+        info.addProperty("volume", volume);
+        JsonObject playParams = new JsonObject();
+        playParams.addProperty("id", track.getCatalogId());
+        playParams.addProperty("kind", "song");
+        info.add("playParams", playParams);
+        return info;
+    }
+
+    private static double parameter(String query, String name, double fallback) {
+        if (query == null) {
+            return fallback;
+        }
+
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                try {
+                    return Double.parseDouble(pair.substring(separator + 1));
+                } catch (NumberFormatException e) {
+                    return fallback;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private static void delay(long[] latency) throws InterruptedException {
+        long min = latency[0];
+        long max = latency[1];
+        if (max <= 0) {
+            return;
+        }
+        Thread.sleep(max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : min);
+    }
+
+    private static JsonObject ok() {
+        JsonObject json = new JsonObject();
+        json.addProperty("status", "ok");
+        return json;
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject json = new JsonObject();
+        json.addProperty("status", "error");
+        json.addProperty("message", message);
+        return json;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if ("HEAD".equalsIgnoreCase(exchange.getRequestMethod())) {
+            // Headers only, the reachability probe never reads a body
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Run standalone, e.g. to point a development client at it: FakeCiderServer [port] [latencyMs] [errorRate]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 10767;
+        FakeCiderServer server = new FakeCiderServer(List.of(
+            new FakeTrack("Get Lucky", "Daft Punk", "Random Access Memories", null, 369626, "Electronic"),
+            new FakeTrack("Blinding Lights", "The Weeknd", "After Hours", null, 200040, "R&B/Soul"),
+            new FakeTrack("Bohemian Rhapsody", "Queen", "A Night at the Opera", null, 354320, "Rock")
+        ));
+        if (args.length > 1) {
+            long latency = Long.parseLong(args[1]);
+            server.setLatency(latency, latency);
+        }
+        if (args.length > 2) {
+            server.setErrorRate(Double.parseDouble(args[2]));
+        }
+        server.start(port);
+        System.out.println("Fake Cider listening on " + server.getUrl());
+    }
+}
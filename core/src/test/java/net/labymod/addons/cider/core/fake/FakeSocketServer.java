@@ -0,0 +1,384 @@
+package net.labymod.addons.cider.core.fake;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minimal stand-in for Cider's Socket.IO endpoint: a WebSocket server (RFC 6455 text frames only) that runs the
+ * Engine.IO v4 handshake and replays recorded frames
+ * Plain GET requests are answered with canned bodies, so a streaming CiderAPI can connect against the same port
+ */
+public class FakeSocketServer {
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    private volatile ServerSocket server;
+    private volatile Socket webSocket;
+    private volatile long lastRequestNanos;
+    private volatile long pingInterval = 25000;
+    private volatile long pingTimeout = 20000;
+
+    /**
+     * Start listening on a free loopback port
+     */
+    public synchronized FakeSocketServer start() throws IOException {
+        server = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "Fake Cider Socket");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    public synchronized void stop() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException e) {
+            // Already closed
+        }
+        disconnect();
+        for (Socket socket : sockets) {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Base URL to configure CiderHttpClient with
+     */
+    public String getUrl() {
+        return "http://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort();
+    }
+
+    /**
+     * Answer GET requests for {@code path} with a 200 and the given JSON body
+     */
+    public FakeSocketServer respond(String path, String body) {
+        responses.put(path, body);
+        return this;
+    }
+
+    /**
+     * Ping settings announced in the Engine.IO open packet, the server itself never pings unless told to via {@link #send}
+     */
+    public FakeSocketServer setPing(long intervalMs, long timeoutMs) {
+        this.pingInterval = intervalMs;
+        this.pingTimeout = timeoutMs;
+        return this;
+    }
+
+    /**
+     * Text frames sent by the client, in order
+     */
+    public BlockingQueue<String> getReceived() {
+        return received;
+    }
+
+    public long getRequestCount(String path) {
+        LongAdder count = requests.get(path);
+        return count != null ? count.sum() : 0L;
+    }
+
+    /**
+     * Nanos timestamp of the last answered GET request, 0 if there was none
+     */
+    public long getLastRequestNanos() {
+        return lastRequestNanos;
+    }
+
+    public boolean isConnected() {
+        return webSocket != null;
+    }
+
+    /**
+     * Send a text frame to the connected client
+     */
+    public void send(String frame) throws IOException {
+        Socket socket = webSocket;
+        if (socket == null) {
+            throw new IOException("No WebSocket client connected");
+        }
+        writeFrame(socket.getOutputStream(), frame);
+    }
+
+    /**
+     * Send every frame of a recording, one Engine.IO packet per line, blank lines and # comments skipped
+     */
+    public void replay(String resource) throws IOException {
+        for (String frame : loadFrames(resource)) {
+            send(frame);
+        }
+    }
+
+    /**
+     * Send a normal close frame, the client answers and the connection ends
+     */
+    public void close() throws IOException {
+        Socket socket = webSocket;
+        if (socket != null) {
+            writeFrame(socket.getOutputStream(), 0x8, new byte[] {0x03, (byte) 0xE8});
+        }
+    }
+
+    /**
+     * Drop the WebSocket connection without a close frame
+     */
+    public void disconnect() {
+        Socket socket = webSocket;
+        webSocket = null;
+        if (socket != null) {
+            closeQuietly(socket);
+        }
+    }
+
+    public static List<String> loadFrames(String resource) throws IOException {
+        InputStream in = FakeSocketServer.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Missing recording " + resource);
+        }
+
+        List<String> frames = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    frames.add(line);
+                }
+            }
+        }
+        return frames;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                sockets.add(socket);
+                Thread thread = new Thread(() -> serve(socket), "Fake Cider Socket Client");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+
+            // HTTP/1.1 keep-alive: serve requests until the client upgrades or goes away
+            while (true) {
+                List<String> head = readHead(in);
+                if (head == null) {
+                    return;
+                }
+
+                String[] requestLine = head.get(0).split(" ");
+                String path = requestLine[1];
+                String key = header(head, "sec-websocket-key");
+                if (key != null) {
+                    upgrade(socket, out, key);
+                    readFrames(new DataInputStream(in), out);
+                    return;
+                }
+
+                answer(out, path, "HEAD".equals(requestLine[0]));
+            }
+        } catch (SocketException | EOFException e) {
+            // Client or test closed the connection
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sockets.remove(socket);
+            if (webSocket == socket) {
+                webSocket = null;
+            }
+        }
+    }
+
+    private void answer(OutputStream out, String path, boolean headOnly) throws IOException {
+        String body = responses.get(path);
+        byte[] bytes = (body != null ? body : "{\"error\":\"Not found\"}").getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + (body != null ? "200 OK" : "404 Not Found") + "\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: " + bytes.length + "\r\n\r\n";
+
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        if (!headOnly) {
+            out.write(bytes);
+        }
+        out.flush();
+
+        requests.computeIfAbsent(path, ignored -> new LongAdder()).increment();
+        lastRequestNanos = System.nanoTime();
+    }
+
+    private void upgrade(Socket socket, OutputStream out, String key) throws IOException {
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+            + "Upgrade: websocket\r\n"
+            + "Connection: Upgrade\r\n"
+            + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        webSocket = socket;
+        writeFrame(out, "0{\"sid\":\"fake\",\"upgrades\":[],\"pingInterval\":" + pingInterval
+            + ",\"pingTimeout\":" + pingTimeout + ",\"maxPayload\":1000000}");
+    }
+
+    /**
+     * Read masked client frames until close, answering the Socket.IO connect itself
+     */
+    private void readFrames(DataInputStream in, OutputStream out) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        while (true) {
+            int first = in.readUnsignedByte();
+            int second = in.readUnsignedByte();
+            boolean fin = (first & 0x80) != 0;
+            int opcode = first & 0x0F;
+
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+
+            byte[] mask = new byte[4];
+            if ((second & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+
+            switch (opcode) {
+                case 0x8:
+                    writeFrame(out, 0x8, new byte[0]);
+                    return;
+                case 0x9:
+                    writeFrame(out, 0xA, payload);
+                    break;
+                case 0x0:
+                case 0x1:
+                    message.write(payload);
+                    if (fin) {
+                        String text = message.toString(StandardCharsets.UTF_8);
+                        message.reset();
+                        received.offer(text);
+                        if ("40".equals(text)) {
+                            writeFrame(out, "40{\"sid\":\"fake\"}");
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void writeFrame(OutputStream out, String text) throws IOException {
+        writeFrame(out, 0x1, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        synchronized (out) {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                out.write(126);
+                out.write(payload.length >>> 8);
+                out.write(payload.length & 0xFF);
+            } else {
+                out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) ((long) payload.length >>> shift) & 0xFF);
+                }
+            }
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    /**
+     * Request line and headers, null once the client closed the connection
+     */
+    private static List<String> readHead(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int end = line.length() > 0 && line.charAt(line.length() - 1) == '\r' ? line.length() - 1 : line.length();
+                if (end == 0) {
+                    return lines.isEmpty() ? null : lines;
+                }
+                lines.add(line.substring(0, end));
+                line.setLength(0);
+            } else {
+                line.append((char) b);
+            }
+        }
+        return null;
+    }
+
+    private static String header(List<String> head, String name) {
+        for (int i = 1; i < head.size(); i++) {
+            String line = head.get(i);
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package net.labymod.addons.cider.core.fake;
+
+/**
+ * A track in the script played by {@link FakeCiderServer}
+ */
+public class FakeTrack {
+    private final String catalogId;
+    private final String name;
+    private final String artistName;
+    private final String albumName;
+    private final String artworkUrl;
+    private final long durationInMillis;
+    private final String genre;
+
+    public FakeTrack(String catalogId, String name, String artistName, String albumName, String artworkUrl, long durationInMillis, String genre) {
+        this.catalogId = catalogId;
+        this.name = name;
+        this.artistName = artistName;
+        this.albumName = albumName;
+        this.artworkUrl = artworkUrl;
+        this.durationInMillis = durationInMillis;
+        this.genre = genre;
+    }
+
+    /**
+     * Track with a catalog id derived from name and artist, stable across runs
+     */
+    public FakeTrack(String name, String artistName, String albumName, String artworkUrl, long durationInMillis, String genre) {
+        this(
+            Integer.toUnsignedString((name + '\u0000' + artistName).hashCode()),
+            name, artistName, albumName, artworkUrl, durationInMillis, genre
+        );
+    }
+
+    public FakeTrack(String name, String artistName, long durationInMillis) {
+        this(name, artistName, "", null, durationInMillis, "Unknown");
+    }
+
+    public String getCatalogId() {
+        return catalogId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getArtistName() {
+        return artistName;
+    }
+
+    public String getAlbumName() {
+        return albumName;
+    }
+
+    public String getArtworkUrl() {
+        return artworkUrl;
+    }
+
+    public long getDurationInMillis() {
+        return durationInMillis;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+}